@@ -5,9 +5,13 @@ import java.util.Scanner;
 
 import controller.ControllerGUI;
 import controller.ControllerImpl;
-import model.APIRequestsImpl;
+import model.APIRequests;
+import model.CachedAPIRequests;
+import model.CoalescingAPIRequests;
+import model.HttpAPIRequests;
 import model.ModelComponentImpl;
 import model.PortfolioRepositoryImpl;
+import model.ScheduledAPIRequests;
 import view.JFrameView;
 import view.ViewComponentImpl;
 
@@ -18,6 +22,19 @@ import view.ViewComponentImpl;
  */
 public class Stock {
 
+  /**
+   * Helper method to create the API request object used by the model. Concurrent requests for the
+   * same company share one fetch, whose response is saved in the local price cache, and requests
+   * which miss the cache are scheduled within the AlphaVantage call limit and sent over a shared
+   * pool of http connections.
+   *
+   * @return APIRequests object.
+   */
+  private static APIRequests createApi() {
+    return new CoalescingAPIRequests(new CachedAPIRequests(
+        new ScheduledAPIRequests(new HttpAPIRequests())));
+  }
+
   /**
    * Main class of the application.
    *
@@ -32,11 +49,11 @@ public class Stock {
 
       if (Objects.equals(viewType, "1")) {
         new ControllerGUI(new ModelComponentImpl(System.out, new PortfolioRepositoryImpl(),
-            new APIRequestsImpl()), new JFrameView("Stock Application"));
+            createApi()), new JFrameView("Stock Application"));
       } else {
         new ControllerImpl(new InputStreamReader(System.in), System.out,
             new ModelComponentImpl(System.out, new PortfolioRepositoryImpl(),
-                new APIRequestsImpl()), new ViewComponentImpl(System.out)).start();
+                createApi()), new ViewComponentImpl(System.out)).start();
 
       }
     } catch (IOException e) {
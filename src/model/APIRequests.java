@@ -1,5 +1,6 @@
 package model;
 
+import model.enums.FetchPriority;
 import model.enums.TimeUnit;
 
 /**
@@ -15,4 +16,29 @@ public interface APIRequests {
    * @return stock price of the company.
    */
   String getTimeSeriesData(TimeUnit scale, String symbol);
+
+  /**
+   * Method to make a price API request for the given company with a fetch priority. Requests which
+   * are not scheduled ignore the priority.
+   * @param scale date range.
+   * @param symbol Company/Stock symbol.
+   * @param priority priority of the request.
+   * @return stock price of the company.
+   */
+  default String getTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return getTimeSeriesData(scale, symbol);
+  }
+
+  /**
+   * Method to make a price API request for only the latest data points of the given company, used
+   * to refresh a price history which is already stored. Requests which cannot limit the response
+   * size return the full history, which is a valid superset.
+   * @param scale date range.
+   * @param symbol Company/Stock symbol.
+   * @param priority priority of the request.
+   * @return latest stock prices of the company.
+   */
+  default String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return getTimeSeriesData(scale, symbol, priority);
+  }
 }
@@ -1,10 +1,13 @@
 package model;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 
+import model.enums.FetchPriority;
 import model.enums.TimeUnit;
 
 /**
@@ -25,11 +28,12 @@ public class APIRequestsImpl implements APIRequests {
   /**
    * This method is used to get url String as per time unit and given company symbol.
    *
-   * @param scale  time unit for fetching stocks price data
-   * @param symbol company/Stock symbol
+   * @param scale      time unit for fetching stocks price data
+   * @param symbol     company/Stock symbol
+   * @param outputSize full for the complete history, compact for the latest 100 data points
    * @return url string used to fetch price data of company stock.
    */
-  private String getUrl(TimeUnit scale, String symbol) {
+  String getUrl(TimeUnit scale, String symbol, String outputSize) {
     String timeSeries = "TIME_SERIES_DAILY";
     switch (scale) {
       case Daily:
@@ -43,25 +47,40 @@ public class APIRequestsImpl implements APIRequests {
         break;
     }
     return "https://www.alphavantage.co/query?function=" + timeSeries + "&symbol=" + symbol
-            + "&apikey=" + API_KEY + "&outputsize=full";
+            + "&apikey=" + API_KEY + "&outputsize=" + outputSize;
   }
 
   @Override
   public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getResponse(getUrl(scale, symbol, "full"));
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return getResponse(getUrl(scale, symbol, "compact"));
+  }
+
+  /**
+   * Helper method to read the response of an API url.
+   *
+   * @param apiUrl url string of the request.
+   * @return response string, empty if the request failed.
+   */
+  private String getResponse(String apiUrl) {
     URL url = null;
     try {
-      url = new URL(getUrl(scale, symbol));
+      url = new URL(apiUrl);
     } catch (MalformedURLException e) {
       throw new RuntimeException("the alphavantage API has either changed or "
               + "no longer works");
     }
-    InputStream in = null;
     StringBuilder output = new StringBuilder();
-    try {
-      in = url.openStream();
-      int b;
-      while ((b = in.read()) != -1) {
-        output.append((char) b);
+    try (Reader in = Channels.newReader(Channels.newChannel(url.openStream()),
+            StandardCharsets.UTF_8)) {
+      char[] buffer = new char[8192];
+      int length;
+      while ((length = in.read(buffer)) != -1) {
+        output.append(buffer, 0, length);
       }
     } catch (IOException e) {
       // throw new IllegalArgumentException(String.format("No price data found for %s.", symbol));
@@ -1,20 +1,21 @@
 package model;
 
 import org.joda.time.DateTime;
-import org.json.JSONObject;
 
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.ResolverStyle;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import model.dto.Pair;
 import model.dto.PortfolioPerformanceDTO;
+import model.enums.FetchPriority;
+import model.enums.LotMatching;
 import model.enums.InvestmentStrategy;
 import model.enums.TimeUnit;
 import model.enums.TransactionType;
@@ -29,7 +30,7 @@ import static java.lang.Integer.min;
  */
 abstract class AbstractModel {
 
-  private final APIRequests api;
+  private final PriceStore prices;
 
   /**
    * Constructs a AbstractModel object.
@@ -37,7 +38,7 @@ abstract class AbstractModel {
    * @param api APIRequests object.
    */
   public AbstractModel(APIRequests api) {
-    this.api = api;
+    this.prices = new PriceStore(api);
   }
 
   /**
@@ -122,80 +123,66 @@ abstract class AbstractModel {
   protected ArrayList<Pair> getStockPriceRange(String companySymbol, String startDate,
                                                String endDate,
                                                TimeUnit scale) {
+    return getStockPriceRange(companySymbol, startDate, endDate, scale, FetchPriority.INTERACTIVE);
+  }
 
-    String data = api.getTimeSeriesData(scale, companySymbol);
-
+  /**
+   * Helper method to get stock price for a company symbol for a given date range, fetching missing
+   * price data with the given priority.
+   *
+   * @param companySymbol Company/Stock symbol.
+   * @param startDate     Starting date.
+   * @param endDate       End date.
+   * @param scale         Date range scale.
+   * @param priority      priority of the price data fetch.
+   * @return stock price of the company.
+   */
+  protected ArrayList<Pair> getStockPriceRange(String companySymbol, String startDate,
+                                               String endDate, TimeUnit scale,
+                                               FetchPriority priority) {
     ArrayList<Pair> listOfPrices = new ArrayList<>();
-    if (data != null) {
-      JSONObject jsonObject = new JSONObject(data);
-
-      // monthly
-      if ((scale.equals(TimeUnit.Monthly) || (scale.equals(TimeUnit.Yearly))) && jsonObject != null
-              && jsonObject.getJSONObject("Monthly Time Series") != null) {
-        endDate = endDate.substring(0, 8) + "31";
-        startDate = startDate.substring(0, 8) + "01";
-        JSONObject myResponse = jsonObject.getJSONObject("Monthly Time Series");
-        if (myResponse != null && myResponse.keySet() != null && myResponse.keySet().size() > 0) {
-          ArrayList<String> stockPriceDates
-                  = new ArrayList<>(myResponse.keySet());
-          stockPriceDates.sort(Collections.reverseOrder());
-          JSONObject closeValue = null;
-          if (scale.equals(TimeUnit.Monthly)) {
-            for (String validDate : stockPriceDates) {
-              if (validDate.compareTo(startDate) < 0) {
-                break;
-              }
-              if (endDate.compareTo(validDate) >= 0) {
-                if (myResponse.get(validDate) != null) {
-                  closeValue = (JSONObject) myResponse.get(validDate);
-                  String stockPrice = (String) closeValue.get("4. close");
-                  listOfPrices.add(new Pair(validDate, Double.parseDouble(stockPrice)));
-                }
-              }
-            }
-          } else {
-            String currentYear = endDate.substring(0, 7);
-            for (String validDate : stockPriceDates) {
-              if (validDate.compareTo(startDate) < 0) {
-                break;
-              }
-              if ((validDate.substring(0, 7).equals(currentYear)
-                      || Integer.parseInt(validDate.substring(5, 7)) == 12)
-                      && endDate.compareTo(validDate) >= 0) {
-                if (myResponse.get(validDate) != null) {
-                  closeValue = (JSONObject) myResponse.get(validDate);
-                  String stockPrice = (String) closeValue.get("4. close");
-                  listOfPrices.add(new Pair(validDate, Double.parseDouble(stockPrice)));
-                }
-              }
-            }
-          }
-        }
-      }
+    if (scale.equals(TimeUnit.Daily) || scale.equals(TimeUnit.Weekly)) {
+      addPrices(listOfPrices, prices.getSeries(scale, companySymbol, priority)
+              .slice(EpochDay.parse(startDate), EpochDay.parse(endDate)));
+      return listOfPrices;
+    }
 
-      // daily
-      if (scale.equals(TimeUnit.Daily) && jsonObject != null
-              && jsonObject.getJSONObject("Time Series (Daily)") != null) {
-        JSONObject myResponse = jsonObject.getJSONObject("Time Series (Daily)");
-        if (myResponse != null && myResponse.keySet() != null && myResponse.keySet().size() > 0) {
-          ArrayList<String> stockPriceDates
-                  = new ArrayList<>(myResponse.keySet());
-          stockPriceDates.sort(Collections.reverseOrder());
-          JSONObject closeValue = null;
-          for (String validDate : stockPriceDates) {
-            if (endDate.compareTo(validDate) >= 0 && validDate.compareTo(startDate) >= 0) {
-              closeValue = (JSONObject) myResponse.get(validDate);
-              String stockPrice = (String) closeValue.get("4. close");
-              listOfPrices.add(new Pair(validDate, Double.parseDouble(stockPrice)));
-            }
-          }
-        }
+    // monthly and yearly data points are dated at the end of each period, and a yearly range
+    // ends with the point of its last month.
+    String currentMonth = endDate.substring(0, 7);
+    int startDay = EpochDay.parse(startDate.substring(0, 8) + "01");
+    int monthStartDay = EpochDay.parse(currentMonth + "-01");
+    int endDay = (int) YearMonth.parse(currentMonth).atEndOfMonth().toEpochDay();
+    if (scale.equals(TimeUnit.Monthly)) {
+      addPrices(listOfPrices, prices.getSeries(TimeUnit.Monthly, companySymbol, priority)
+              .slice(startDay, endDay));
+      return listOfPrices;
+    }
+    addPrices(listOfPrices, prices.getSeries(TimeUnit.Monthly, companySymbol, priority)
+            .slice(Math.max(startDay, monthStartDay), endDay));
+    PriceSeries years = prices.getSeries(TimeUnit.Yearly, companySymbol, priority)
+            .slice(startDay, EpochDay.parse(currentMonth.substring(0, 4) + "-01-01") - 1);
+    for (int i = years.size() - 1; i >= 0; i--) {
+      // a year whose last price is not in December has no year end price.
+      if (EpochDay.toEpochMonth(years.getDay(i)) % 12 == 11) {
+        listOfPrices.add(new Pair(EpochDay.format(years.getDay(i)), years.getClose(i)));
       }
     }
-
     return listOfPrices;
   }
 
+  /**
+   * Helper method to add the prices of a series to a list, latest first.
+   *
+   * @param listOfPrices list of date and price pairs.
+   * @param series       price series.
+   */
+  private void addPrices(ArrayList<Pair> listOfPrices, PriceSeries series) {
+    for (int i = series.size() - 1; i >= 0; i--) {
+      listOfPrices.add(new Pair(EpochDay.format(series.getDay(i)), series.getClose(i)));
+    }
+  }
+
   /**
    * Helper method to get stock's unit price, given the company's stock symbol and a date value.
    *
@@ -204,34 +191,62 @@ abstract class AbstractModel {
    * @return stock's unit price.
    */
   protected double getStockPrice(String companySymbol, String date) {
-    if (date.isEmpty()) {
-      SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-      date = format.format(new Date());
-    }
-    String data = api.getTimeSeriesData(TimeUnit.Daily, companySymbol);
-    if (data != null) {
-      JSONObject jsonObject = new JSONObject(data);
-
-      if (jsonObject.getJSONObject("Time Series (Daily)") != null) {
-        JSONObject myResponse = jsonObject.getJSONObject("Time Series (Daily)");
-        if (myResponse != null && myResponse.keySet() != null && myResponse.keySet().size() > 0) {
-          ArrayList<String> stockPriceDates
-                  = new ArrayList<>(myResponse.keySet());
-          stockPriceDates.sort(Collections.reverseOrder());
-          JSONObject closeValue = null;
-          for (String validDate : stockPriceDates) {
-            if (date.compareTo(validDate) >= 0) {
-              if (myResponse.get(validDate) != null) {
-                closeValue = (JSONObject) myResponse.get(validDate);
-                String stockPrice = (String) closeValue.get("4. close");
-                return Double.parseDouble(stockPrice);
-              }
-            }
-          }
-        }
-      }
-    }
-    return 0;
+    return getStockPrice(companySymbol, date, FetchPriority.INTERACTIVE);
+  }
+
+  /**
+   * Helper method to get stock's unit price, given the company's stock symbol and a date value,
+   * fetching missing price data with the given priority.
+   *
+   * @param companySymbol Stock symbol.
+   * @param date          Date for which price is required.
+   * @param priority      priority of the price data fetch.
+   * @return stock's unit price.
+   */
+  protected double getStockPrice(String companySymbol, String date, FetchPriority priority) {
+    int epochDay = date.isEmpty() ? EpochDay.today() : EpochDay.parse(date);
+    return prices.getClose(companySymbol, epochDay, priority);
+  }
+
+  /**
+   * Helper method to load the price data of the given companies in the background.
+   *
+   * @param symbols company/Stock symbols.
+   * @param out     output on which progress and failures are reported.
+   * @param threads number of companies fetched at the same time.
+   * @return future completed once every company was tried, with the number of companies loaded.
+   */
+  protected CompletableFuture<Integer> prefetchPrices(Collection<String> symbols, Appendable out,
+                                                      int threads) {
+    return new PricePrefetcher(prices, out, Cache.getWorkers(), threads).prefetch(symbols);
+  }
+
+  /**
+   * Helper method to get the closing prices of the given companies on a date, looking the companies
+   * up in parallel on the shared worker threads. Companies whose price could not be found are
+   * reported on the output.
+   *
+   * @param symbols company/Stock symbols.
+   * @param date    date for which prices are required, today if empty.
+   * @param out     output on which failures are reported.
+   * @return closing price by symbol, 0 for a company whose price could not be found.
+   */
+  protected Map<String, Double> quotePrices(Collection<String> symbols, String date,
+                                            Appendable out) {
+    int epochDay = date.isEmpty() ? EpochDay.today() : EpochDay.parse(date);
+    return new PriceQuoter(prices, out, Cache.getWorkers()).quote(symbols, epochDay);
+  }
+
+  /**
+   * Helper method to load the archived prices of the given companies into the shared off-heap
+   * price arena, which then serves their price lookups.
+   *
+   * @param symbols company/Stock symbols.
+   * @return price arena.
+   */
+  protected PriceArena loadPriceArena(Collection<String> symbols) {
+    Cache.priceArena = prices.loadArena(symbols);
+    return Cache.priceArena;
   }
 
   /**
@@ -245,25 +260,173 @@ abstract class AbstractModel {
           List<CompanyStock>> companyStocks) {
     HashMap<String, List<CompanyStock>> updatedStocks = new HashMap<>();
 
-    LocalDate givenDate = LocalDate.parse(date,
-            DateTimeFormatter.ofPattern("uuuu-M-d").withResolverStyle(ResolverStyle.STRICT));
+    int givenDay = EpochDay.parseStrict(date);
 
     // adding only stocks with dates less than date parameter.
     for (String key : companyStocks.keySet()) {
-      List<CompanyStock> newList = new ArrayList<>();
+      updatedStocks.put(key, TransactionTable.rowsOf(companyStocks.get(key)).until(givenDay));
+    }
 
-      for (CompanyStock c : companyStocks.get(key)) {
-        LocalDate cDate = LocalDate.parse(c.getDate());
+    return updatedStocks;
+  }
 
-        if (!cDate.isAfter(givenDate)) {
-          newList.add(c);
+  /**
+   * Helper method to get the value of a portfolio on every price point of a date range. The price
+   * points of all companies are aligned on their period (day, week or month), and a company without
+   * a price point in a period carries its last known price forward to it. Each price is multiplied
+   * by the quantity held at the end of the date of the point, or of the period for a carried price.
+   *
+   * @param ledger    position ledger of the portfolio.
+   * @param symbols   company/Stock symbols of the portfolio.
+   * @param startDate Starting date.
+   * @param endDate   End date.
+   * @param scale     Date range scale.
+   * @return date and portfolio value pairs, earliest first.
+   */
+  protected ArrayList<Pair> getPortfolioValues(PositionLedger ledger, Collection<String> symbols,
+                                               String startDate, String endDate,
+                                               TimeUnit scale) {
+    // a yearly range ends with the monthly points of its last month.
+    TimeUnit period = scale == TimeUnit.Yearly ? TimeUnit.Monthly : scale;
+    String[] symbolList = symbols.toArray(new String[0]);
+    int[][] days = new int[symbolList.length][];
+    int[][] periods = new int[symbolList.length][];
+    double[][] prices = new double[symbolList.length][];
+    for (int s = 0; s < symbolList.length; s++) {
+      // price points come latest first.
+      ArrayList<Pair> priceValues = getStockPriceRange(symbolList[s], startDate, endDate, scale);
+      int size = priceValues.size();
+      days[s] = new int[size];
+      periods[s] = new int[size];
+      prices[s] = new double[size];
+      for (int i = 0; i < size; i++) {
+        Pair p = priceValues.get(size - 1 - i);
+        days[s][i] = EpochDay.parse(p.getKey());
+        periods[s][i] = PriceSeries.toPeriod(period, days[s][i]);
+        prices[s][i] = p.getValue();
+      }
+    }
+
+    AlignedSeries aligned = AlignedSeries.join(periods);
+    int[] keys = aligned.getKeys();
+    // each period is dated by the first company with a price point in it.
+    int[] dates = new int[keys.length];
+    boolean[] dated = new boolean[keys.length];
+    for (int s = 0; s < symbolList.length; s++) {
+      int[] indices = aligned.getIndices(s);
+      for (int i = 0; i < keys.length; i++) {
+        if (!dated[i] && indices[i] >= 0 && periods[s][indices[i]] == keys[i]) {
+          dates[i] = days[s][indices[i]];
+          dated[i] = true;
         }
       }
+    }
 
-      updatedStocks.put(key, newList);
+    double[] values = new double[keys.length];
+    for (int s = 0; s < symbolList.length; s++) {
+      int[] indices = aligned.getIndices(s);
+      double[] quantities = ledger.getQuantities(symbolList[s], days[s]);
+      double[] carriedQuantities = ledger.getQuantities(symbolList[s], dates);
+      for (int i = 0; i < keys.length; i++) {
+        int point = indices[i];
+        if (point < 0) {
+          continue;
+        }
+        values[i] += periods[s][point] == keys[i] ? prices[s][point] * quantities[point]
+                : prices[s][point] * carriedQuantities[i];
+      }
     }
 
-    return updatedStocks;
+    ArrayList<Pair> portfolioValues = new ArrayList<>();
+    for (int i = 0; i < keys.length; i++) {
+      portfolioValues.add(new Pair(EpochDay.format(dates[i]), values[i]));
+    }
+    return portfolioValues;
+  }
+
+  /**
+   * Helper method to get the value of a portfolio at the end of each of the given days. The days
+   * are sorted once, and the quantities and prices of every company are then each found in a single
+   * pass over the sorted days. Companies not held on any of the days are not priced.
+   *
+   * @param ledger  position ledger of the portfolio.
+   * @param symbols company/Stock symbols of the portfolio.
+   * @param days    epoch days, in any order.
+   * @return value of the portfolio on each day, in the order of the days.
+   */
+  protected double[] getPortfolioValues(PositionLedger ledger, Collection<String> symbols,
+                                        int[] days) {
+    long[] order = new long[days.length];
+    for (int i = 0; i < days.length; i++) {
+      order[i] = (long) days[i] << 32 | i;
+    }
+    Arrays.sort(order);
+    int[] sortedDays = new int[days.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedDays[i] = (int) (order[i] >> 32);
+    }
+
+    double[] sortedValues = new double[days.length];
+    for (String symbol : symbols) {
+      double[] quantities = ledger.getQuantities(symbol, sortedDays);
+      int first = 0;
+      while (first < quantities.length && quantities[first] == 0) {
+        first++;
+      }
+      if (first == quantities.length) {
+        continue;
+      }
+      double[] closes = prices.getCloses(symbol,
+              Arrays.copyOfRange(sortedDays, first, sortedDays.length), FetchPriority.INTERACTIVE);
+      for (int i = first; i < quantities.length; i++) {
+        sortedValues[i] += quantities[i] * closes[i - first];
+      }
+    }
+
+    double[] values = new double[days.length];
+    for (int i = 0; i < order.length; i++) {
+      values[(int) order[i]] = sortedValues[i];
+    }
+    return values;
+  }
+
+  /**
+   * Helper method to get the position ledger of a portfolio, building it again if the portfolio
+   * transactions were replaced since it was built.
+   *
+   * @param portfolioName name of the portfolio.
+   * @param companyStocks transactions of the portfolio.
+   * @return position ledger.
+   */
+  protected PositionLedger getLedger(String portfolioName,
+                                     HashMap<String, List<CompanyStock>> companyStocks) {
+    PositionLedger ledger = Cache.ledgers.get(portfolioName);
+    if (ledger == null || !ledger.isOf(companyStocks)) {
+      ledger = new PositionLedger(companyStocks);
+      Cache.ledgers.put(portfolioName, ledger);
+    }
+    return ledger;
+  }
+
+  /**
+   * Helper method to get the tax lots of a portfolio, matching its sales again if the portfolio
+   * transactions were replaced since they were matched. Lots identified for its sales are used
+   * again.
+   *
+   * @param portfolioName name of the portfolio.
+   * @param companyStocks transactions of the portfolio.
+   * @return tax lot ledger.
+   */
+  protected TaxLotLedger getTaxLots(String portfolioName,
+                                    HashMap<String, List<CompanyStock>> companyStocks) {
+    TaxLotLedger taxLots = Cache.taxLots.get(portfolioName);
+    if (taxLots == null || !taxLots.isOf(companyStocks)) {
+      taxLots = new TaxLotLedger(companyStocks,
+              LotMatching.valueOf(Cache.getProperty("lotMatching", "FIFO")),
+              Cache.lotIdentifications.computeIfAbsent(portfolioName, k -> new HashMap<>()));
+      Cache.taxLots.put(portfolioName, taxLots);
+    }
+    return taxLots;
   }
 
   /**
@@ -276,52 +439,70 @@ abstract class AbstractModel {
    */
   protected HashMap<String, CompanyStock> getCumulativeData(
           HashMap<String, List<CompanyStock>> companyStocks, String edDate, String date) {
+    return getCumulativeData(companyStocks, edDate, date, null);
+  }
+
+  /**
+   * Helper method to get the cumulative portfolio data from the transaction stored in a portfolio,
+   * valued with prices which were already looked up.
+   *
+   * @param companyStocks list of stocks saved in the portfolio.
+   * @param edDate        endDate.
+   * @param date          date at which data is needed.
+   * @param quotes        closing price by symbol on the date, null to look each price up.
+   * @return HashMap containing symbol - portfolio contents.
+   */
+  protected HashMap<String, CompanyStock> getCumulativeData(
+          HashMap<String, List<CompanyStock>> companyStocks, String edDate, String date,
+          Map<String, Double> quotes) {
     HashMap<String, CompanyStock> stocks = new HashMap<>();
+    int edDay = edDate == null ? Integer.MAX_VALUE : EpochDay.parse(edDate);
 
     for (String companySymbol : companyStocks.keySet()) {
-      for (CompanyStock currentStock : companyStocks.get(companySymbol)) {
-        String csDate = currentStock.getDate();
-        if (edDate != null && edDate.compareTo(csDate) < 0) {
+      TransactionTable.Rows rows = TransactionTable.rowsOf(companyStocks.get(companySymbol));
+      TransactionTable table = rows.getTable();
+      boolean held = false;
+      double quantity = 0;
+      double boughtPrice = 0;
+      double commissionFees = 0;
+      int last = -1;
+
+      for (int i = 0; i < rows.size(); i++) {
+        int row = rows.getRow(i);
+        if (table.getDay(row) > edDay) {
           continue;
         }
 
-        if (stocks.containsKey(companySymbol)) {
-          CompanyStock stockInMap = stocks.get(companySymbol);
-
+        TransactionType type = table.getType(row);
+        if (held) {
           // update bought price to average bought price.
-          TransactionType type = currentStock.getType();
           int sign = type == TransactionType.BUY ? 1 : -1;
-          double netQuantity = sign * currentStock.getQuantity() + stockInMap.getQuantity();
-          double netCommissionFees =
-                  currentStock.getCommissionFees() + stockInMap.getCommissionFees();
-          double netBoughtValue = currentStock.getBoughtValue() + stockInMap.getBoughtValue();
-          double boughtPrice = stockInMap.getBoughtPrice();
+          double netBoughtValue = table.getValue(row) + quantity * boughtPrice;
+          quantity = sign * table.getQuantity(row) + quantity;
+          commissionFees = table.getFees(row) + commissionFees;
 
           // calculating average bought price
           if (type == TransactionType.BUY && date.isEmpty()) {
-            boughtPrice = netBoughtValue / netQuantity;
+            boughtPrice = netBoughtValue / quantity;
           }
-
-          currentStock = new CompanyStockImpl("", currentStock.getCompanyName(), companySymbol,
-                  netQuantity, boughtPrice, type, netCommissionFees);
         } else {
-          int sign = currentStock.getType() == TransactionType.SELL ? -1 : 1;
-          double quantity = sign * currentStock.getQuantity();
-          double boughtPrice = currentStock.getBoughtPrice();
+          int sign = type == TransactionType.SELL ? -1 : 1;
+          quantity = sign * table.getQuantity(row);
+          boughtPrice = table.getPrice(row);
+          commissionFees = table.getFees(row);
 
           if (!date.isEmpty()) {
-            boughtPrice = getStockPrice(companySymbol, date);
+            boughtPrice = quotes == null ? getStockPrice(companySymbol, date)
+                    : quotes.getOrDefault(companySymbol, 0.0);
           }
-
-          currentStock = new CompanyStockImpl("", currentStock.getCompanyName(), companySymbol,
-                  quantity, boughtPrice, currentStock.getType(), currentStock.getCommissionFees());
         }
+        held = quantity != 0;
+        last = row;
+      }
 
-        if (currentStock.getQuantity() == 0) {
-          stocks.remove(companySymbol);
-        } else {
-          stocks.put(companySymbol, currentStock);
-        }
+      if (held) {
+        stocks.put(companySymbol, new CompanyStockImpl("", table.getName(last), companySymbol,
+                quantity, boughtPrice, table.getType(last), commissionFees));
       }
     }
     return stocks;
@@ -0,0 +1,114 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents several sorted series aligned on the union of their keys, such as the
+ * dates or the months of price points. The union of the keys is built by merging the series in
+ * pairs, and each series is then walked once alongside it, so that for every key of the union the
+ * series points at its last point on or before that key. A series without a point for a key thus
+ * carries its last known point forward to it. Companies which trade on different days, were listed
+ * in the middle of a range or stopped trading before its end can then still be combined key by key.
+ */
+class AlignedSeries {
+  private final int[] keys;
+  private final int[][] indices;
+
+  /**
+   * Constructs an AlignedSeries object.
+   *
+   * @param keys    union of the keys of every series, in ascending order.
+   * @param indices index of the point of each series used for each key.
+   */
+  private AlignedSeries(int[] keys, int[][] indices) {
+    this.keys = keys;
+    this.indices = indices;
+  }
+
+  /**
+   * Method to align series on the union of their keys.
+   *
+   * @param keys keys of the points of each series, in ascending order.
+   * @return aligned series.
+   */
+  static AlignedSeries join(int[][] keys) {
+    int[] union = keys.length == 0 ? new int[0] : union(keys, 0, keys.length);
+    int[][] indices = new int[keys.length][];
+    for (int s = 0; s < keys.length; s++) {
+      int[] series = keys[s];
+      int[] index = new int[union.length];
+      int next = 0;
+      for (int u = 0; u < union.length; u++) {
+        while (next < series.length && series[next] <= union[u]) {
+          next++;
+        }
+        index[u] = next - 1;
+      }
+      indices[s] = index;
+    }
+    return new AlignedSeries(union, indices);
+  }
+
+  /**
+   * Helper method to get the union of the keys of a range of series, by merging the unions of its
+   * two halves.
+   *
+   * @param keys keys of the points of each series, in ascending order.
+   * @param from index of the first series of the range.
+   * @param to   index after the last series of the range.
+   * @return distinct keys of the range, in ascending order.
+   */
+  private static int[] union(int[][] keys, int from, int to) {
+    if (to - from == 1) {
+      return merge(keys[from], new int[0]);
+    }
+    int middle = (from + to) >>> 1;
+    return merge(union(keys, from, middle), union(keys, middle, to));
+  }
+
+  /**
+   * Helper method to merge two sorted key arrays, keeping every key once.
+   *
+   * @param first  keys in ascending order.
+   * @param second keys in ascending order.
+   * @return distinct keys of both arrays, in ascending order.
+   */
+  private static int[] merge(int[] first, int[] second) {
+    int[] merged = new int[first.length + second.length];
+    int i = 0;
+    int j = 0;
+    int size = 0;
+    while (i < first.length || j < second.length) {
+      int key;
+      if (j == second.length || (i < first.length && first[i] <= second[j])) {
+        key = first[i++];
+      } else {
+        key = second[j++];
+      }
+      if (size == 0 || merged[size - 1] != key) {
+        merged[size++] = key;
+      }
+    }
+    return size == merged.length ? merged : Arrays.copyOf(merged, size);
+  }
+
+  /**
+   * Method to get the keys of the aligned series.
+   *
+   * @return keys in ascending order.
+   */
+  int[] getKeys() {
+    return keys;
+  }
+
+  /**
+   * Method to get the point of one series used for each key, which is the last point of the
+   * series on or before the key.
+   *
+   * @param series index of the series.
+   * @return index of the point for each key, -1 before the first point of the series.
+   */
+  int[] getIndices(int series) {
+    return indices[series];
+  }
+}
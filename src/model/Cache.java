@@ -6,9 +6,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a Cache object which is used to retrieve and load up previously accessed
@@ -19,7 +22,26 @@ class Cache {
 
   static Map<String, String> companyList = new HashMap<>();
 
-  static Map<String, HashMap<String, List<CompanyStock>>> objectStore = new HashMap<>();
+  static SymbolDictionary symbols = new SymbolDictionary();
+
+  static PortfolioCache objectStore = new PortfolioCache(64);
+
+  static Map<String, PositionLedger> ledgers = new HashMap<>();
+
+  static Map<String, TaxLotLedger> taxLots = new HashMap<>();
+
+  // lots identified for sales, by portfolio name; kept when the tax lots are matched again.
+  static Map<String, Map<String, Map<Integer, int[]>>> lotIdentifications = new HashMap<>();
+
+  static Map<String, PriceSeries> priceStore = new ConcurrentHashMap<>();
+
+  static Map<String, CompressedPriceSeries> coldPrices = new ConcurrentHashMap<>();
+
+  static Map<String, PriceArchive> priceArchives = new ConcurrentHashMap<>();
+
+  static PriceArena priceArena;
+
+  private static ExecutorService workers;
 
   /**
    * This method load configuration from config file.
@@ -34,6 +56,39 @@ class Cache {
     }
   }
 
+  /**
+   * This method reads a value from the config file, loading the config first if required.
+   *
+   * @param key          config key.
+   * @param defaultValue value used when the key is not configured.
+   * @return configured value.
+   */
+  static String getProperty(String key, String defaultValue) {
+    if (properties.isEmpty()) {
+      loadConfig();
+    }
+    return properties.getProperty(key, defaultValue);
+  }
+
+  /**
+   * This method gets the shared pool of daemon threads on which price data is looked up and
+   * prefetched, creating it first if required. Its size is the configured valuationThreads.
+   *
+   * @return shared thread pool.
+   */
+  static synchronized ExecutorService getWorkers() {
+    if (workers == null) {
+      int threads = Math.max(1, Integer.parseInt(getProperty("valuationThreads", "8")));
+      AtomicInteger count = new AtomicInteger();
+      workers = Executors.newFixedThreadPool(threads, runnable -> {
+        Thread thread = new Thread(runnable, "price-worker-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return workers;
+  }
+
   /**
    * Helper method to load the cache contents.
    *
@@ -52,16 +107,16 @@ class Cache {
         String[] data = ticker.split(",");
         if (data != null && data.length >= 2 && !data[1].isEmpty()) {
           companyList.put(data[0], data[1]);
+          symbols.add(data[0], data[1]);
         }
       }
       bufferedReader.close();
-
-      List<String> portfolioData = portfolioRepo.getListOfPortfolio();
-      for (String portfolioName : portfolioData) {
-        objectStore.put(portfolioName, portfolioRepo.getPortfolio(portfolioName));
-      }
     } catch (IOException ex) {
       // pass;
     }
+
+    // portfolios are read on first access.
+    objectStore.attach(portfolioRepo,
+            Integer.parseInt(getProperty("portfolioCacheSize", "64")));
   }
 }
@@ -0,0 +1,120 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a caching API request object. It decorates another APIRequests object and
+ * saves every successful time series response in a local directory, so a repeated request for the
+ * same company and time unit is served from the disk until the saved response gets older than the
+ * configured freshness time.
+ */
+public class CachedAPIRequests implements APIRequests {
+  static final long DEFAULT_TTL_MINUTES = 12 * 60;
+  private static final String DEFAULT_CACHE_PATH = "/Applications/priceCache/";
+
+  private final APIRequests api;
+  private final Path cacheDir;
+  private final long ttlMillis;
+
+  /**
+   * Constructs a CachedAPIRequests object which reads its cache directory (priceCachePath) and its
+   * freshness time in minutes (priceCacheTtlMinutes) from the application config file.
+   *
+   * @param api APIRequests object used when the cache does not have a fresh response.
+   */
+  public CachedAPIRequests(APIRequests api) {
+    this(api, Cache.getProperty("priceCachePath", DEFAULT_CACHE_PATH),
+            Long.parseLong(Cache.getProperty("priceCacheTtlMinutes",
+                    String.valueOf(DEFAULT_TTL_MINUTES))) * 60 * 1000);
+  }
+
+  /**
+   * Constructs a CachedAPIRequests object and initializes the cache directory and the freshness
+   * time of a saved response.
+   *
+   * @param api       APIRequests object used when the cache does not have a fresh response.
+   * @param cachePath directory in which responses are saved.
+   * @param ttlMillis time in milliseconds for which a saved response is considered fresh.
+   */
+  public CachedAPIRequests(APIRequests api, String cachePath, long ttlMillis) {
+    this.api = api;
+    this.cacheDir = Paths.get(cachePath);
+    this.ttlMillis = ttlMillis;
+    try {
+      Files.createDirectories(cacheDir);
+    } catch (IOException io) {
+      // pass;
+    }
+  }
+
+  /**
+   * Helper method to get the name of the file in which response of a company and time unit is
+   * saved. Recorded fixtures use the same name, so a cache directory can be replayed as is.
+   *
+   * @param scale  time unit of the response.
+   * @param symbol company/Stock symbol.
+   * @return name of the file.
+   */
+  static String getFileName(TimeUnit scale, String symbol) {
+    return symbol + "_" + scale + ".json";
+  }
+
+  /**
+   * Helper method to check if a response has price data in it. AlphaVantage returns a note instead
+   * of price data when the request limit is reached, such responses must not be cached.
+   *
+   * @param data response string.
+   * @return true if response has price data, else false.
+   */
+  static boolean hasTimeSeries(String data) {
+    return data != null && data.contains("Time Series");
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getTimeSeriesData(scale, symbol, FetchPriority.INTERACTIVE);
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    Path file = cacheDir.resolve(getFileName(scale, symbol));
+    try {
+      if (Files.exists(file)
+              && System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis()
+              < ttlMillis) {
+        return Files.readString(file, StandardCharsets.UTF_8);
+      }
+    } catch (IOException io) {
+      // pass;
+    }
+
+    String data = api.getTimeSeriesData(scale, symbol, priority);
+    try {
+      if (hasTimeSeries(data)) {
+        Path tmp = Files.createTempFile(cacheDir, symbol, ".tmp");
+        Files.writeString(tmp, data, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } else if (Files.exists(file)) {
+        // an old response is better than no price data at all.
+        return Files.readString(file, StandardCharsets.UTF_8);
+      }
+    } catch (IOException io) {
+      // pass;
+    }
+    return data;
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return api.getRecentTimeSeriesData(scale, symbol, priority);
+  }
+}
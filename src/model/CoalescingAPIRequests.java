@@ -0,0 +1,128 @@
+package model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a coalescing API request object. It decorates another APIRequests object
+ * so that concurrent requests for the same company and time unit share a single in-flight fetch:
+ * the first caller makes the request and every caller arriving before it completes waits on the
+ * same future instead of downloading the data again.
+ */
+public class CoalescingAPIRequests implements APIRequests {
+  private final APIRequests api;
+  private final ConcurrentMap<String, CompletableFuture<String>> inFlight;
+  private final AtomicLong fetchCount;
+  private final AtomicLong coalescedCount;
+
+  /**
+   * Constructs a CoalescingAPIRequests object.
+   *
+   * @param api APIRequests object used for the actual fetch, usually a cached one so that the
+   *            shared result also fills the cache.
+   */
+  public CoalescingAPIRequests(APIRequests api) {
+    this.api = api;
+    this.inFlight = new ConcurrentHashMap<>();
+    this.fetchCount = new AtomicLong();
+    this.coalescedCount = new AtomicLong();
+  }
+
+  /**
+   * Method to get the time series data of a company as a future. If a fetch for the same company
+   * and time unit is already running, its future is returned, otherwise the calling thread makes
+   * the request.
+   *
+   * @param scale    time unit of the price data.
+   * @param symbol   company/Stock symbol.
+   * @param priority priority of the request.
+   * @return future of the response string.
+   */
+  public CompletableFuture<String> fetch(TimeUnit scale, String symbol, FetchPriority priority) {
+    return fetch(symbol + "_" + scale, () -> api.getTimeSeriesData(scale, symbol, priority));
+  }
+
+  /**
+   * Helper method to make a request unless a request with the same key is already running.
+   *
+   * @param key     key of the request.
+   * @param request request to make.
+   * @return future of the response string.
+   */
+  private CompletableFuture<String> fetch(String key, Supplier<String> request) {
+    CompletableFuture<String> created = new CompletableFuture<>();
+    CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      coalescedCount.incrementAndGet();
+      return existing;
+    }
+
+    fetchCount.incrementAndGet();
+    try {
+      created.complete(request.get());
+    } catch (RuntimeException e) {
+      created.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, created);
+    }
+    return created;
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getTimeSeriesData(scale, symbol, FetchPriority.INTERACTIVE);
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return join(fetch(scale, symbol, priority));
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return join(fetch(symbol + "_" + scale + "_recent",
+        () -> api.getRecentTimeSeriesData(scale, symbol, priority)));
+  }
+
+  /**
+   * Helper method to wait for a response, rethrowing the failure of the request if any.
+   *
+   * @param future future of the response string.
+   * @return response string.
+   */
+  private String join(CompletableFuture<String> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Method to get the number of fetches passed on to the decorated API.
+   *
+   * @return number of fetches made.
+   */
+  public long getFetchCount() {
+    return fetchCount.get();
+  }
+
+  /**
+   * Method to get the number of requests which were served by joining an in-flight fetch.
+   *
+   * @return number of coalesced requests.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+}
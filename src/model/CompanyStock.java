@@ -19,6 +19,12 @@ public interface CompanyStock {
    */
   String getCompanySymbol();
 
+  /**
+   * Helper method to get the ID of the stock's symbol in the symbol dictionary.
+   * @return Stock's symbol ID.
+   */
+  int getSymbolId();
+
   /**
    * Helper method to get the stock's quantity
    * value.
@@ -44,6 +50,13 @@ public interface CompanyStock {
 
   String getDate();
 
+  /**
+   * Helper method to get the date of the transaction as an epoch day, for date comparisons
+   * without parsing the date string.
+   * @return number of days since 1970-01-01, EpochDay.NONE if the date is not valid.
+   */
+  int getEpochDay();
+
   TransactionType getType();
 
 
@@ -1,16 +1,20 @@
 package model;
 
+import java.util.Objects;
+
 import model.enums.TransactionType;
 
 /**
  * This class represents a company stock. A company stock has company name, company/stock symbol,
- * quantity, stock unit price and total bought value.
+ * quantity, stock unit price and total bought value. The symbol is kept as its ID in the shared
+ * symbol dictionary, and a company name equal to the one in the dictionary shares its string.
  */
 public class CompanyStockImpl implements CompanyStock {
 
   private final String date;
+  private final int epochDay;
+  private final int symbolId;
   private final String companyName;
-  private final String companySymbol;
   private final Double quantity;
   private Double boughtPrice;
   private Double boughtValue;
@@ -31,14 +35,8 @@ public class CompanyStockImpl implements CompanyStock {
    */
   public CompanyStockImpl(String date, String companyName, String companySymbol, Double quantity,
       Double boughtPrice, TransactionType type, Double commissionFees) {
-    this.date = date;
-    this.companyName = companyName;
-    this.companySymbol = companySymbol;
-    this.quantity = quantity;
-    this.boughtPrice = boughtPrice;
-    this.boughtValue = quantity * boughtPrice;
-    this.type = type;
-    this.commissionFees = commissionFees;
+    this(date, companyName, companySymbol, quantity, boughtPrice, quantity * boughtPrice, type,
+        commissionFees);
   }
 
   /**
@@ -57,8 +55,10 @@ public class CompanyStockImpl implements CompanyStock {
   public CompanyStockImpl(String date, String companyName, String companySymbol, Double quantity,
       Double boughtPrice, Double boughtValue, TransactionType type, Double commissionFees) {
     this.date = date;
-    this.companyName = companyName;
-    this.companySymbol = companySymbol;
+    this.epochDay = EpochDay.parseOrNone(date);
+    this.symbolId = Cache.symbols.add(companySymbol, companyName);
+    String listedName = Cache.symbols.getName(symbolId);
+    this.companyName = Objects.equals(companyName, listedName) ? listedName : companyName;
     this.quantity = quantity;
     this.boughtPrice = boughtPrice;
     this.boughtValue = boughtValue;
@@ -73,7 +73,12 @@ public class CompanyStockImpl implements CompanyStock {
 
   @Override
   public String getCompanySymbol() {
-    return companySymbol;
+    return Cache.symbols.getSymbol(symbolId);
+  }
+
+  @Override
+  public int getSymbolId() {
+    return symbolId;
   }
 
   @Override
@@ -101,6 +106,11 @@ public class CompanyStockImpl implements CompanyStock {
     return this.date;
   }
 
+  @Override
+  public int getEpochDay() {
+    return epochDay;
+  }
+
   @Override
   public TransactionType getType() {
     return type;
@@ -114,7 +124,7 @@ public class CompanyStockImpl implements CompanyStock {
 
   @Override
   public String toString() {
-    return String.format("%s,%s,%s,%.2f,%.2f,%.2f,%.2f,%s", date, companyName, companySymbol,
-        quantity, boughtPrice, boughtValue, commissionFees, type);
+    return String.format("%s,%s,%s,%.2f,%.2f,%.2f,%.2f,%s", date, getCompanyName(),
+        getCompanySymbol(), quantity, boughtPrice, boughtValue, commissionFees, type);
   }
 }
@@ -0,0 +1,417 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a compressed price series, used for the price history of companies which
+ * have not been looked at for a while. Dates are stored as delta-of-delta values and prices as the
+ * XOR of consecutive values, as in the Gorilla time series encoding, so a run of trading days costs
+ * one bit per date and a price shares the sign, exponent and leading mantissa bits of the previous
+ * one. The series is split into blocks of BLOCK_SIZE points which each start with raw values, so a
+ * price lookup decodes a single block instead of the whole history.
+ */
+class CompressedPriceSeries {
+  static final int BLOCK_SIZE = 128;
+
+  private final long[] bits;
+  private final int size;
+  private final boolean ohlcv;
+  private final int[] blockDays;
+  private final long[] blockStarts;
+  private final long[] closeStarts;
+  private final long loadedAt;
+
+  /**
+   * Constructs a CompressedPriceSeries object.
+   *
+   * @param bits        encoded blocks.
+   * @param size        number of price points.
+   * @param ohlcv       true if open, high, low and volume values are encoded.
+   * @param blockDays   first epoch day of each block.
+   * @param blockStarts bit offset of each block.
+   * @param closeStarts bit offset of the closing prices of each block.
+   * @param loadedAt    time in milliseconds at which the data was loaded.
+   */
+  private CompressedPriceSeries(long[] bits, int size, boolean ohlcv, int[] blockDays,
+                                long[] blockStarts, long[] closeStarts, long loadedAt) {
+    this.bits = bits;
+    this.size = size;
+    this.ohlcv = ohlcv;
+    this.blockDays = blockDays;
+    this.blockStarts = blockStarts;
+    this.closeStarts = closeStarts;
+    this.loadedAt = loadedAt;
+  }
+
+  /**
+   * Method to compress a price series. Each block holds the dates, then the closing prices, then
+   * the open, high and low prices and volumes if the series has them.
+   *
+   * @param series price series.
+   * @return compressed price series, loaded at the same time as the given series.
+   */
+  static CompressedPriceSeries encode(PriceSeries series) {
+    int size = series.size();
+    int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    int[] blockDays = new int[blocks];
+    long[] blockStarts = new long[blocks];
+    long[] closeStarts = new long[blocks];
+    BitWriter out = new BitWriter();
+
+    for (int block = 0; block < blocks; block++) {
+      int start = block * BLOCK_SIZE;
+      int end = Math.min(size, start + BLOCK_SIZE);
+      blockDays[block] = series.getDay(start);
+      blockStarts[block] = out.position();
+      writeDays(out, series, start, end);
+      closeStarts[block] = out.position();
+      XorWriter closes = new XorWriter(out);
+      for (int i = start; i < end; i++) {
+        closes.write(Double.doubleToRawLongBits(series.getClose(i)));
+      }
+      if (series.hasOhlcv()) {
+        XorWriter opens = new XorWriter(out);
+        for (int i = start; i < end; i++) {
+          opens.write(Double.doubleToRawLongBits(series.getOpen(i)));
+        }
+        XorWriter highs = new XorWriter(out);
+        for (int i = start; i < end; i++) {
+          highs.write(Double.doubleToRawLongBits(series.getHigh(i)));
+        }
+        XorWriter lows = new XorWriter(out);
+        for (int i = start; i < end; i++) {
+          lows.write(Double.doubleToRawLongBits(series.getLow(i)));
+        }
+        XorWriter volumes = new XorWriter(out);
+        for (int i = start; i < end; i++) {
+          volumes.write(series.getVolume(i));
+        }
+      }
+    }
+    return new CompressedPriceSeries(out.toArray(), size, series.hasOhlcv(), blockDays,
+            blockStarts, closeStarts, series.getLoadedAt());
+  }
+
+  /**
+   * Helper method to write the dates of a block. The first date is written as it is and every
+   * later date as the change of its distance to the previous date.
+   *
+   * @param out    bit writer.
+   * @param series price series.
+   * @param start  first index of the block.
+   * @param end    index after the last index of the block.
+   */
+  private static void writeDays(BitWriter out, PriceSeries series, int start, int end) {
+    out.write(series.getDay(start), 32);
+    int delta = 1;
+    for (int i = start + 1; i < end; i++) {
+      int newDelta = series.getDay(i) - series.getDay(i - 1);
+      long deltaOfDelta = (long) newDelta - delta;
+      if (deltaOfDelta == 0) {
+        out.write(0, 1);
+      } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+        out.write(0b10, 2);
+        out.write(deltaOfDelta + 63, 7);
+      } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+        out.write(0b110, 3);
+        out.write(deltaOfDelta + 255, 9);
+      } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+        out.write(0b1110, 4);
+        out.write(deltaOfDelta + 2047, 12);
+      } else {
+        out.write(0b1111, 4);
+        out.write(newDelta, 32);
+      }
+      delta = newDelta;
+    }
+  }
+
+  /**
+   * Helper method to read the dates of a block, stopping after the last date on or before the
+   * given day.
+   *
+   * @param in       bit reader positioned at the start of the block.
+   * @param count    number of dates in the block.
+   * @param days     array to fill with the dates, may be null.
+   * @param offset   index of days at which the first date is stored.
+   * @param epochDay last day to read.
+   * @return number of dates read which are on or before the given day.
+   */
+  private static int readDays(BitReader in, int count, int[] days, int offset, int epochDay) {
+    int day = (int) in.read(32);
+    int delta = 1;
+    int read = 0;
+    while (day <= epochDay) {
+      if (days != null) {
+        days[offset + read] = day;
+      }
+      if (++read == count) {
+        break;
+      }
+      if (in.read(1) == 0) {
+        day += delta;
+        continue;
+      }
+      if (in.read(1) == 0) {
+        delta += (int) in.read(7) - 63;
+      } else if (in.read(1) == 0) {
+        delta += (int) in.read(9) - 255;
+      } else if (in.read(1) == 0) {
+        delta += (int) in.read(12) - 2047;
+      } else {
+        delta = (int) in.read(32);
+      }
+      day += delta;
+    }
+    return read;
+  }
+
+  /**
+   * Method to get number of price points in the series.
+   *
+   * @return number of price points.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Method to get the time at which the price data was loaded.
+   *
+   * @return time in milliseconds.
+   */
+  long getLoadedAt() {
+    return loadedAt;
+  }
+
+  /**
+   * Method to get the memory used by the encoded blocks and their index.
+   *
+   * @return size in bytes.
+   */
+  long getByteSize() {
+    return bits.length * 8L + blockDays.length * (4L + 8L + 8L);
+  }
+
+  /**
+   * Method to get the closing price on the given day, or on the last trading day before it. Only
+   * the block holding that day is decoded.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return closing price, 0 if there is no price on or before the given day.
+   */
+  double getCloseOnOrBefore(int epochDay) {
+    int block = Arrays.binarySearch(blockDays, epochDay);
+    if (block < 0) {
+      block = -block - 2;
+    }
+    if (block < 0) {
+      return 0;
+    }
+    int count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+    int index = readDays(new BitReader(bits, blockStarts[block]), count, null, 0, epochDay) - 1;
+
+    XorReader closes = new XorReader(new BitReader(bits, closeStarts[block]));
+    long value = 0;
+    for (int i = 0; i <= index; i++) {
+      value = closes.read();
+    }
+    return Double.longBitsToDouble(value);
+  }
+
+  /**
+   * Method to decompress the whole series.
+   *
+   * @return price series, loaded at the same time as this series.
+   */
+  PriceSeries decode() {
+    int[] days = new int[size];
+    double[] closes = new double[size];
+    double[] opens = ohlcv ? new double[size] : null;
+    double[] highs = ohlcv ? new double[size] : null;
+    double[] lows = ohlcv ? new double[size] : null;
+    long[] volumes = ohlcv ? new long[size] : null;
+
+    for (int block = 0; block < blockDays.length; block++) {
+      int start = block * BLOCK_SIZE;
+      int count = Math.min(BLOCK_SIZE, size - start);
+      BitReader in = new BitReader(bits, blockStarts[block]);
+      readDays(in, count, days, start, Integer.MAX_VALUE);
+      readDoubles(new XorReader(in), closes, start, count);
+      if (ohlcv) {
+        readDoubles(new XorReader(in), opens, start, count);
+        readDoubles(new XorReader(in), highs, start, count);
+        readDoubles(new XorReader(in), lows, start, count);
+        XorReader volumeReader = new XorReader(in);
+        for (int i = 0; i < count; i++) {
+          volumes[start + i] = volumeReader.read();
+        }
+      }
+    }
+    PriceSeries series = ohlcv ? new PriceSeries(days, opens, highs, lows, closes, volumes)
+            : new PriceSeries(days, closes);
+    return series.withLoadedAt(loadedAt);
+  }
+
+  /**
+   * Helper method to read a column of prices of a block.
+   *
+   * @param in     reader of the column.
+   * @param values array to fill.
+   * @param start  index of values at which the first price is stored.
+   * @param count  number of prices in the block.
+   */
+  private static void readDoubles(XorReader in, double[] values, int start, int count) {
+    for (int i = 0; i < count; i++) {
+      values[start + i] = Double.longBitsToDouble(in.read());
+    }
+  }
+
+  /**
+   * This class represents a writer of values as the XOR with the previous value. Only the bits
+   * between the leading and trailing zeros of the XOR are written, reusing the previous window if
+   * they fit in it.
+   */
+  private static class XorWriter {
+    private final BitWriter out;
+    private boolean first = true;
+    private long previous;
+    private int leading = Integer.MAX_VALUE;
+    private int trailing;
+
+    private XorWriter(BitWriter out) {
+      this.out = out;
+    }
+
+    private void write(long value) {
+      if (first) {
+        out.write(value, 64);
+        previous = value;
+        first = false;
+        return;
+      }
+      long xor = value ^ previous;
+      previous = value;
+      if (xor == 0) {
+        out.write(0, 1);
+        return;
+      }
+      out.write(1, 1);
+      int newLeading = Math.min(31, Long.numberOfLeadingZeros(xor));
+      int newTrailing = Long.numberOfTrailingZeros(xor);
+      if (newLeading >= leading && newTrailing >= trailing) {
+        out.write(0, 1);
+        out.write(xor >>> trailing, 64 - leading - trailing);
+        return;
+      }
+      leading = newLeading;
+      trailing = newTrailing;
+      int length = 64 - leading - trailing;
+      out.write(1, 1);
+      out.write(leading, 5);
+      out.write(length == 64 ? 0 : length, 6);
+      out.write(xor >>> trailing, length);
+    }
+  }
+
+  /**
+   * This class represents a reader of values written by XorWriter.
+   */
+  private static class XorReader {
+    private final BitReader in;
+    private boolean first = true;
+    private long previous;
+    private int leading;
+    private int trailing;
+
+    private XorReader(BitReader in) {
+      this.in = in;
+    }
+
+    private long read() {
+      if (first) {
+        first = false;
+        previous = in.read(64);
+        return previous;
+      }
+      if (in.read(1) == 0) {
+        return previous;
+      }
+      if (in.read(1) == 1) {
+        leading = (int) in.read(5);
+        int length = (int) in.read(6);
+        trailing = 64 - leading - (length == 0 ? 64 : length);
+      }
+      previous ^= in.read(64 - leading - trailing) << trailing;
+      return previous;
+    }
+  }
+
+  /**
+   * This class represents a growable buffer which bits are appended to.
+   */
+  private static class BitWriter {
+    private long[] words = new long[64];
+    private long position;
+
+    private long position() {
+      return position;
+    }
+
+    private void write(long value, int count) {
+      if (count == 0) {
+        return;
+      }
+      if (count < 64) {
+        value &= (1L << count) - 1;
+      }
+      int word = (int) (position >>> 6);
+      int used = (int) (position & 63);
+      if (word + 1 >= words.length) {
+        words = Arrays.copyOf(words, words.length * 2);
+      }
+      int free = 64 - used;
+      if (count <= free) {
+        words[word] |= value << (free - count);
+      } else {
+        words[word] |= value >>> (count - free);
+        words[word + 1] |= value << (64 - (count - free));
+      }
+      position += count;
+    }
+
+    private long[] toArray() {
+      return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+    }
+  }
+
+  /**
+   * This class represents a reader of the bits of a BitWriter from a given position.
+   */
+  private static class BitReader {
+    private final long[] words;
+    private long position;
+
+    private BitReader(long[] words, long position) {
+      this.words = words;
+      this.position = position;
+    }
+
+    private long read(int count) {
+      if (count == 0) {
+        return 0;
+      }
+      int word = (int) (position >>> 6);
+      int used = (int) (position & 63);
+      int free = 64 - used;
+      long value;
+      if (count <= free) {
+        value = words[word] >>> (free - count);
+      } else {
+        value = (words[word] << (count - free)) | (words[word + 1] >>> (64 - (count - free)));
+      }
+      position += count;
+      return count == 64 ? value : value & ((1L << count) - 1);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * This class represents the date representation used inside the model: a plain int counting the
+ * days since 1970-01-01. Dates are converted from and to yyyy-MM-dd strings only where they enter
+ * or leave the model, that is in portfolio files and in the view, so comparing the dates of
+ * transactions and price points is an int comparison without parsing or allocation.
+ */
+final class EpochDay {
+  /**
+   * Epoch day of a date string which is not a valid yyyy-MM-dd date.
+   */
+  static final int NONE = Integer.MIN_VALUE;
+
+  private static final DateTimeFormatter STRICT = DateTimeFormatter.ofPattern("uuuu-M-d")
+          .withResolverStyle(ResolverStyle.STRICT);
+
+  private EpochDay() {
+  }
+
+  /**
+   * Method to convert a yyyy-MM-dd date string to an epoch day. Only the first 10 characters are
+   * read and an out of range day of month rolls over into the next month, so the value can always
+   * be used for date comparisons.
+   *
+   * @param date date string in yyyy-MM-dd format.
+   * @return number of days since 1970-01-01.
+   */
+  static int parse(String date) {
+    return of(Integer.parseInt(date.substring(0, 4)), Integer.parseInt(date.substring(5, 7)),
+            Integer.parseInt(date.substring(8, 10)));
+  }
+
+  /**
+   * Method to convert a yyyy-MM-dd date string to an epoch day, accepting any string.
+   *
+   * @param date date string.
+   * @return number of days since 1970-01-01, NONE if the string is not in yyyy-MM-dd format.
+   */
+  static int parseOrNone(String date) {
+    if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+      return NONE;
+    }
+    for (int i = 0; i < 10; i++) {
+      if (i != 4 && i != 7 && (date.charAt(i) < '0' || date.charAt(i) > '9')) {
+        return NONE;
+      }
+    }
+    return parse(date);
+  }
+
+  /**
+   * Method to convert a date string entered by the user to an epoch day. Only valid calendar dates
+   * are accepted.
+   *
+   * @param date date string in yyyy-MM-dd format.
+   * @return number of days since 1970-01-01.
+   * @throws DateTimeParseException if the string is not a valid date.
+   */
+  static int parseStrict(String date) throws DateTimeParseException {
+    return (int) LocalDate.parse(date, STRICT).toEpochDay();
+  }
+
+  /**
+   * Method to convert a year, month and day to an epoch day without creating any date object. An
+   * out of range day of month rolls over into the next month.
+   *
+   * @param year  year.
+   * @param month month of year, from 1 to 12.
+   * @param day   day of month.
+   * @return number of days since 1970-01-01.
+   */
+  static int of(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Method to get the epoch day of the current date.
+   *
+   * @return number of days since 1970-01-01.
+   */
+  static int today() {
+    return (int) LocalDate.now().toEpochDay();
+  }
+
+  /**
+   * Method to convert an epoch day to a yyyy-MM-dd date string.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return date string, empty for NONE.
+   */
+  static String format(int epochDay) {
+    return epochDay == NONE ? "" : LocalDate.ofEpochDay(epochDay).toString();
+  }
+
+  /**
+   * Method to convert an epoch day to the number of months since January 1970 without creating any
+   * date object.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return number of months since 1970-01.
+   */
+  static int toEpochMonth(int epochDay) {
+    int z = epochDay + 719468;
+    int era = (z >= 0 ? z : z - 146096) / 146097;
+    int dayOfEra = z - era * 146097;
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    return (year - 1970) * 12 + month - 1;
+  }
+}
@@ -0,0 +1,131 @@
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents an API request object built on java.net.http.HttpClient. All instances
+ * share one client, so connections to AlphaVantage are kept alive and reused between requests.
+ * Responses are requested gzip compressed, a connect and a read timeout stop a slow endpoint from
+ * blocking the caller indefinitely, and every request is also available as a CompletableFuture so
+ * requests for many companies can run at the same time.
+ */
+public class HttpAPIRequests extends APIRequestsImpl {
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+  private static final HttpClient CLIENT = HttpClient.newBuilder()
+          .connectTimeout(CONNECT_TIMEOUT)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .build();
+
+  private final Duration timeout;
+
+  /**
+   * Constructs an HttpAPIRequests object which reads the request timeout (apiTimeoutSeconds) from
+   * the application config file.
+   */
+  public HttpAPIRequests() {
+    this(Duration.ofSeconds(Long.parseLong(Cache.getProperty("apiTimeoutSeconds",
+            String.valueOf(DEFAULT_TIMEOUT_SECONDS)))));
+  }
+
+  /**
+   * Constructs an HttpAPIRequests object.
+   *
+   * @param timeout time to wait for a response before the request fails.
+   */
+  public HttpAPIRequests(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getTimeSeriesDataAsync(scale, symbol).join();
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return getRecentTimeSeriesDataAsync(scale, symbol).join();
+  }
+
+  /**
+   * Method to get the full time series data of a company without blocking the calling thread.
+   *
+   * @param scale  time unit of the price data.
+   * @param symbol company/Stock symbol.
+   * @return future of the response string, empty if the request failed.
+   */
+  public CompletableFuture<String> getTimeSeriesDataAsync(TimeUnit scale, String symbol) {
+    return getResponseAsync(getUrl(scale, symbol, "full"));
+  }
+
+  /**
+   * Method to get the latest data points of the time series of a company without blocking the
+   * calling thread.
+   *
+   * @param scale  time unit of the price data.
+   * @param symbol company/Stock symbol.
+   * @return future of the response string, empty if the request failed.
+   */
+  public CompletableFuture<String> getRecentTimeSeriesDataAsync(TimeUnit scale, String symbol) {
+    return getResponseAsync(getUrl(scale, symbol, "compact"));
+  }
+
+  /**
+   * Helper method to send a request to an API url. A failed request gives an empty response, just
+   * like a failed connection in APIRequestsImpl.
+   *
+   * @param apiUrl url string of the request.
+   * @return future of the response string.
+   */
+  private CompletableFuture<String> getResponseAsync(String apiUrl) {
+    HttpRequest request;
+    try {
+      request = HttpRequest.newBuilder(URI.create(apiUrl))
+              .timeout(timeout)
+              .header("Accept-Encoding", "gzip")
+              .GET()
+              .build();
+    } catch (IllegalArgumentException e) {
+      throw new RuntimeException("the alphavantage API has either changed or "
+              + "no longer works");
+    }
+    return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(HttpAPIRequests::decode)
+            .exceptionally(e -> "");
+  }
+
+  /**
+   * Helper method to read the body of a response, decompressing it if it was sent gzip compressed.
+   *
+   * @param response http response.
+   * @return response string, empty if the request was not successful.
+   */
+  private static String decode(HttpResponse<byte[]> response) {
+    if (response.statusCode() != 200) {
+      return "";
+    }
+    byte[] body = response.body();
+    if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+      try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+        body = in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return new String(body, StandardCharsets.UTF_8);
+  }
+}
@@ -6,9 +6,12 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import model.dto.HouseholdValueDTO;
 import model.dto.PortfolioPerformanceDTO;
 import model.enums.TransactionType;
 
@@ -109,6 +112,26 @@ public class MockModel implements ModelComponent {
     return getDummyCompanyData();
   }
 
+  @Override
+  public HouseholdValueDTO getHouseholdValue(String date, List<String> portfolioNames) {
+    log.append("Date value: ").append(date).append("\n");
+    log.append("Portfolio names: ").append(portfolioNames).append("\n");
+
+    LinkedHashMap<String, Double> values = new LinkedHashMap<>();
+    values.put("Dummy Portfolio", (double) uniqueCode);
+    return new HouseholdValueDTO(values, uniqueCode);
+  }
+
+  @Override
+  public double[] getPortfolioValueSeries(String[] dates, String portfolioName) {
+    log.append("Date values: ").append(String.join(",", dates)).append("\n");
+    log.append("Portfolio name: ").append(portfolioName).append("\n");
+
+    double[] values = new double[dates.length];
+    Arrays.fill(values, uniqueCode);
+    return values;
+  }
+
   @Override
   public boolean checkNumber(String value) {
     log.append("Number value is: ").append(value).append("\n");
@@ -176,6 +199,22 @@ public class MockModel implements ModelComponent {
     return 0;
   }
 
+  @Override
+  public double getRealizedGain(String date, String selectedPortfolio) {
+    return 0;
+  }
+
+  @Override
+  public double getUnrealizedGain(String date, String selectedPortfolio) {
+    return 0;
+  }
+
+  @Override
+  public void identifyLots(String selectedPortfolio, String companySymbol, int sale,
+      int... lotIds) {
+    // pass;
+  }
+
   @Override
   public PortfolioPerformanceDTO getPerformanceOfPortfolio(String dateRange,
       String selectedPortfolio) {
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import model.dto.HouseholdValueDTO;
 import model.dto.PortfolioPerformanceDTO;
 import model.enums.TransactionType;
 
@@ -83,6 +84,26 @@ public interface ModelComponent {
    */
   HashMap<String, CompanyStock> getPortfolioValue(String date, String portfolioName);
 
+  /**
+   * Method to get the value of several portfolios for a given date, together with their combined
+   * value. Every company held in any of the portfolios is priced once.
+   *
+   * @param date           date as string
+   * @param portfolioNames names of the portfolios, every saved portfolio if empty.
+   * @return value of each portfolio and their combined value.
+   */
+  HouseholdValueDTO getHouseholdValue(String date, List<String> portfolioNames);
+
+  /**
+   * Method to get the total value of the portfolio for each of the given dates at once.
+   *
+   * @param dates         dates as strings, in any order.
+   * @param portfolioName name of the portfolio.
+   * @return Portfolio value for each date, in the order of the dates, 0 on every date if there is
+   *         no such portfolio.
+   */
+  double[] getPortfolioValueSeries(String[] dates, String portfolioName);
+
   /**
    * Helper method to check if the given user input represents a valid number or not.
    *
@@ -160,6 +181,39 @@ public interface ModelComponent {
    */
   double getCostBasis(String date, String selectedPortfolio);
 
+  /**
+   * Method for getting the gain realized by the sales of a given portfolio up to a given date.
+   * Sales are matched against the purchases of their company under the configured lot matching
+   * policy.
+   *
+   * @param date              Date.
+   * @param selectedPortfolio selected portfolio.
+   * @return realized gain of the portfolio, negative for a loss.
+   */
+  double getRealizedGain(String date, String selectedPortfolio);
+
+  /**
+   * Method for getting the gain of the lots of a given portfolio still open on a given date, had
+   * they been sold on that date.
+   *
+   * @param date              Date.
+   * @param selectedPortfolio selected portfolio.
+   * @return unrealized gain of the portfolio, negative for a loss.
+   */
+  double getUnrealizedGain(String date, String selectedPortfolio);
+
+  /**
+   * Method for identifying the lots a sale of a given portfolio is sold from, when lots are matched
+   * by specific identification. The identified lots are used in the given order, any quantity left
+   * after them is matched first in, first out.
+   *
+   * @param selectedPortfolio selected portfolio.
+   * @param companySymbol     company/Stock symbol.
+   * @param sale              index of the sale in the transactions of the company.
+   * @param lotIds            indices of the purchases of the company the lots were opened by.
+   */
+  void identifyLots(String selectedPortfolio, String companySymbol, int sale, int... lotIds);
+
   /**
    * Method for getting values required to plot portfolio performance.
    *
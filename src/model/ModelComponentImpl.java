@@ -6,21 +6,23 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.format.ResolverStyle;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
+import model.dto.HouseholdValueDTO;
 import model.dto.Pair;
 import model.dto.PortfolioPerformanceDTO;
+import model.enums.FetchPriority;
 import model.enums.InvestmentStrategy;
 import model.enums.PortfolioType;
 import model.enums.TimeUnit;
@@ -54,6 +56,40 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
     Cache.loadConfig();
     this.portfolioRepo = portfolioRepo;
     Cache.loadAppData(portfolioRepo);
+    if (Boolean.parseBoolean(Cache.getProperty("prefetchOnStartup", "false"))) {
+      prefetchPortfolioPrices();
+    }
+    if (Boolean.parseBoolean(Cache.getProperty("priceArenaOnStartup", "false"))) {
+      PriceArena arena = loadPriceArena(Cache.companyList.keySet());
+      try {
+        out.append(String.format("Loaded %d prices of %d companies (%d MB off-heap).\n",
+                arena.getBarCount(), arena.getSymbolCount(), arena.getByteSize() >> 20));
+      } catch (IOException e) {
+        // pass;
+      }
+    }
+  }
+
+  /**
+   * Helper method to load the price data of every company held in the saved portfolios in the
+   * background, so the first valuation after startup does not wait on the API. The saved
+   * portfolios are also read in the background, so startup does not wait on the repository.
+   *
+   * @return future completed once every company was tried, with the number of companies loaded.
+   */
+  CompletableFuture<Integer> prefetchPortfolioPrices() {
+    return CompletableFuture.supplyAsync(() -> {
+      Set<String> symbols = new TreeSet<>();
+      // portfolios are read one at a time, so only the cache size of them is held in memory.
+      for (String portfolioName : Cache.objectStore.keySet()) {
+        HashMap<String, List<CompanyStock>> portfolio = Cache.objectStore.get(portfolioName);
+        if (portfolio != null) {
+          symbols.addAll(portfolio.keySet());
+        }
+      }
+      return symbols;
+    }, Cache.getWorkers()).thenCompose(symbols -> prefetchPrices(symbols, out,
+            Integer.parseInt(Cache.getProperty("prefetchThreads", "4"))));
   }
 
   private String validateCompanySymbol(String[] companySymbol) {
@@ -83,8 +119,7 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
   @Override
   public boolean populateModelStock(String companySymbol, String date) {
     if (date.isEmpty() || Objects.equals(date, "")) {
-      SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-      date = format.format(new Date());
+      date = EpochDay.format(EpochDay.today());
     }
     double price = getStockPrice(companySymbol, date);
     if (price <= 0) {
@@ -110,66 +145,61 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
       return qnty;
     }
 
-    HashMap<String, Double> qntyDate = new HashMap<>();
-
-    for (CompanyStock s : stocks.get(getCompanySymbol())) {
-      int sign = s.getType() == TransactionType.SELL ? -1 : 1;
-      Double currentQnty = s.getQuantity() * sign;
-      String currentDate = s.getDate();
-
-      if (!qntyDate.containsKey(currentDate)) {
-        qntyDate.put(currentDate, currentQnty);
-      } else {
-        qntyDate.put(currentDate, qntyDate.get(currentDate) + currentQnty);
-      }
-    }
-
-    ArrayList<String> sortedKeys = new ArrayList<>(qntyDate.keySet());
-    Collections.sort(sortedKeys);
-
-    Double currQnty = 0.0;
-    Double beforeQnty = 0.0;
-    Double minima = Double.MAX_VALUE;
+    QuantityIndex index = getLedger(selectedPortfolio, stocks)
+            .getQuantityIndex(getCompanySymbol());
+    int givenDay = EpochDay.parseStrict(date);
 
-    LocalDate givenDate = LocalDate.parse(date,
-            DateTimeFormatter.ofPattern("uuuu-M-d").withResolverStyle(ResolverStyle.STRICT));
-
-    for (String el : sortedKeys) {
-      LocalDate elDate = LocalDate.parse(el);
-      currQnty += qntyDate.get(el);
-
-      if (elDate.isAfter(givenDate)) {
-        minima = Double.min(minima, currQnty);
-      } else {
-        beforeQnty = currQnty;
-      }
-    }
-
-    qnty.put("minima", minima);
-    qnty.put("currentQnty", currQnty);
-    qnty.put("beforeQnty", beforeQnty);
+    qnty.put("minima", index.getMinimumAfter(givenDay));
+    qnty.put("currentQnty", index.getTotal());
+    qnty.put("beforeQnty", index.getQuantityOnOrBefore(givenDay));
 
     return qnty;
   }
 
   @Override
   public double getCostBasis(String date, String selectedPortfolio) {
-    HashMap<String, List<CompanyStock>> stocks = updateStocksByDate(date,
-            Cache.objectStore.get(selectedPortfolio));
-
-    double costBasis = 0.0;
+    return getLedger(selectedPortfolio, Cache.objectStore.get(selectedPortfolio))
+            .getCostBasis(EpochDay.parseStrict(date));
+  }
 
-    for (String companySymbol : stocks.keySet()) {
-      for (CompanyStock s : stocks.get(companySymbol)) {
-        if (s.getType() == TransactionType.BUY) {
-          costBasis += s.getBoughtValue();
-        }
+  @Override
+  public double getRealizedGain(String date, String selectedPortfolio) {
+    return getTaxLots(selectedPortfolio, Cache.objectStore.get(selectedPortfolio))
+            .getRealizedGain(EpochDay.parseStrict(date));
+  }
 
-        costBasis += s.getCommissionFees();
+  @Override
+  public double getUnrealizedGain(String date, String selectedPortfolio) {
+    HashMap<String, List<CompanyStock>> companyStocks = Cache.objectStore.get(selectedPortfolio);
+    TaxLotLedger taxLots = getTaxLots(selectedPortfolio, companyStocks);
+    int epochDay = EpochDay.parseStrict(date);
+    List<String> held = new ArrayList<>();
+    for (String symbol : companyStocks.keySet()) {
+      if (taxLots.getOpenQuantity(symbol, epochDay) != 0) {
+        held.add(symbol);
+      }
+    }
+    Map<String, Double> quotes = quotePrices(held, date, out);
+
+    // a company without a price was reported by the quoter and is left out, not valued at 0.
+    double unrealized = 0;
+    for (String symbol : held) {
+      double price = quotes.get(symbol);
+      if (price > 0) {
+        unrealized += taxLots.getUnrealizedGain(symbol, epochDay, price);
       }
     }
+    return unrealized;
+  }
 
-    return costBasis;
+  @Override
+  public void identifyLots(String selectedPortfolio, String companySymbol, int sale,
+                           int... lotIds) {
+    HashMap<String, List<CompanyStock>> companyStocks = Cache.objectStore.get(selectedPortfolio);
+    if (companyStocks == null) {
+      return;
+    }
+    getTaxLots(selectedPortfolio, companyStocks).identify(companySymbol, sale, lotIds);
   }
 
   @Override
@@ -180,38 +210,12 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
     DateTime startDate = new DateTime(stDate);
     DateTime endDate = new DateTime(edDate);
     TimeUnit scale = getTimeUnit(startDate, endDate);
-    ArrayList<Pair> defaultPortfolioData = new ArrayList<>();
-    HashMap<String, List<CompanyStock>> data = portfolioRepo.getPortfolio(selectedPortfolio);
-    //data = filterDate();
-    for (String companySymbol : data.keySet()) {
-      ArrayList<Pair> priceValues = getStockPriceRange(companySymbol, stDate, edDate, scale);
-      for (int i = 0; i < priceValues.size(); i++) {
-        Pair p = priceValues.get(i);
-        HashMap<String, List<CompanyStock>> companyStocks = new HashMap<>();
-        companyStocks.put(companySymbol, data.get(companySymbol));
-        HashMap<String, CompanyStock> cumulativeData = getCumulativeData(companyStocks, p.getKey(),
-                "");
-        Double quantity = 0.0;
-        if (!cumulativeData.isEmpty() && cumulativeData.get(companySymbol) != null) {
-          quantity = cumulativeData.get(companySymbol).getQuantity();
-        }
-        priceValues.get(i).setValue(p.getValue() * quantity);
-      }
-      if (defaultPortfolioData.size() != 0 && defaultPortfolioData.size() != priceValues.size()) {
-        return null;
-      }
-      //code to add different company stock
-      Integer len = defaultPortfolioData.size();
-      if (len == 0) {
-        defaultPortfolioData = priceValues;
-      } else {
-        for (int i = 0; i < len; i++) {
-          if (defaultPortfolioData != null && priceValues != null && priceValues.size() > i) {
-            defaultPortfolioData.get(i).add(priceValues.get(i).getValue());
-          }
-        }
-      }
+    HashMap<String, List<CompanyStock>> data = Cache.objectStore.get(selectedPortfolio);
+    if (data == null) {
+      data = portfolioRepo.getPortfolio(selectedPortfolio);
     }
+    ArrayList<Pair> defaultPortfolioData = getPortfolioValues(getLedger(selectedPortfolio, data),
+            data.keySet(), stDate, edDate, scale);
     if (defaultPortfolioData.size() < 5) {
       return null;
     }
@@ -284,8 +288,73 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
     //date is required
     HashMap<String, List<CompanyStock>> companyStocks = updateStocksByDate(date,
             Cache.objectStore.get(portfolioName));
+    List<String> held = new ArrayList<>();
+    addHeldSymbols(companyStocks, held);
+    Map<String, Double> quotes = quotePrices(held, date, out);
+
+    return getCumulativeData(companyStocks, null, date, quotes);
+  }
+
+  @Override
+  public HouseholdValueDTO getHouseholdValue(String date, List<String> portfolioNames) {
+    List<String> names = portfolioNames == null || portfolioNames.isEmpty() ? getPortfolioList()
+            : portfolioNames;
+
+    // filtering every portfolio first, so that the union of the held companies is priced once.
+    LinkedHashMap<String, HashMap<String, List<CompanyStock>>> portfolios = new LinkedHashMap<>();
+    Set<String> held = new TreeSet<>();
+    for (String name : names) {
+      HashMap<String, List<CompanyStock>> companyStocks = Cache.objectStore.get(name);
+      if (companyStocks == null || portfolios.containsKey(name)) {
+        continue;
+      }
+      companyStocks = updateStocksByDate(date, companyStocks);
+      addHeldSymbols(companyStocks, held);
+      portfolios.put(name, companyStocks);
+    }
+    Map<String, Double> quotes = quotePrices(held, date, out);
+
+    LinkedHashMap<String, Double> values = new LinkedHashMap<>();
+    double totalValue = 0;
+    for (Map.Entry<String, HashMap<String, List<CompanyStock>>> entry : portfolios.entrySet()) {
+      double value = 0;
+      for (CompanyStock stock : getCumulativeData(entry.getValue(), null, date, quotes).values()) {
+        value += stock.getQuantity() * stock.getBoughtPrice();
+      }
+      values.put(entry.getKey(), value);
+      totalValue += value;
+    }
+    return new HouseholdValueDTO(values, totalValue);
+  }
 
-    return getCumulativeData(companyStocks, null, date);
+  @Override
+  public double[] getPortfolioValueSeries(String[] dates, String portfolioName) {
+    HashMap<String, List<CompanyStock>> companyStocks = Cache.objectStore.get(portfolioName);
+    if (companyStocks == null) {
+      return new double[dates.length];
+    }
+    int[] days = new int[dates.length];
+    for (int i = 0; i < dates.length; i++) {
+      days[i] = EpochDay.parseStrict(dates[i]);
+    }
+
+    return getPortfolioValues(getLedger(portfolioName, companyStocks), companyStocks.keySet(),
+            days);
+  }
+
+  /**
+   * Helper method to collect the companies of a portfolio which have at least one transaction.
+   *
+   * @param companyStocks transactions by company symbol.
+   * @param held          collection to which the company symbols are added.
+   */
+  private void addHeldSymbols(HashMap<String, List<CompanyStock>> companyStocks,
+                              Collection<String> held) {
+    for (Map.Entry<String, List<CompanyStock>> entry : companyStocks.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        held.add(entry.getKey());
+      }
+    }
   }
 
   @Override
@@ -337,10 +406,7 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
 
     boolean valid = false;
     try {
-      LocalDate now = LocalDate.now();
-      LocalDate given = LocalDate.parse(date,
-              DateTimeFormatter.ofPattern("uuuu-M-d").withResolverStyle(ResolverStyle.STRICT));
-      if (now.compareTo(given) >= 0) {
+      if (EpochDay.parseStrict(date) <= EpochDay.today()) {
         valid = true;
       }
     } catch (DateTimeParseException e) {
@@ -386,6 +452,21 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
 
     portfolioRepo.updateFile(fileName, this.stocks);
     this.stocks.clear();
+
+    // only the appended transactions are added to the ledgers of the portfolio.
+    PositionLedger ledger = Cache.ledgers.get(fileName);
+    HashMap<String, List<CompanyStock>> companyStocks = Cache.objectStore.get(fileName);
+    if (ledger != null && companyStocks != null) {
+      ledger.update(companyStocks);
+    } else {
+      Cache.ledgers.remove(fileName);
+    }
+    TaxLotLedger taxLots = Cache.taxLots.get(fileName);
+    if (taxLots != null && companyStocks != null) {
+      taxLots.update(companyStocks);
+    } else {
+      Cache.taxLots.remove(fileName);
+    }
   }
 
   @Override
@@ -399,7 +480,8 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
           return false;
         }
       case "TimeUnit":
-        return input.equals("Yearly") || input.equals("Monthly") || input.equals("Daily");
+        return input.equals("Yearly") || input.equals("Monthly") || input.equals("Weekly")
+                || input.equals("Daily");
       default:
     }
     return true;
@@ -412,8 +494,7 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
 
     if (dateRange.length() == 11) {
       if (data.containsKey("portfolioName") &&  Objects.equals(data.get("portfolioName"), "")) {
-        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-        dateRange += format.format(new Date());
+        dateRange += EpochDay.format(EpochDay.today());
       } else {
         dateRange += dateRange.substring(0, 10);
       }
@@ -452,12 +533,13 @@ public class ModelComponentImpl extends AbstractModel implements ModelComponent
       if (dateRange.length() == 21 && dateRange.substring(0, 10)
               .equals(dateRange.substring(11))) {
         priceRange = new ArrayList<>();
-        priceRange.add(new Pair(dateRange, getStockPrice(companySymbol, dateRange)));
+        priceRange.add(new Pair(dateRange,
+                getStockPrice(companySymbol, dateRange, FetchPriority.BULK)));
       } else {
         priceRange = getStockPriceRange(companySymbol,
                 dateRange.substring(0, 10),
                 dateRange.substring(11),
-                timeUnit);
+                timeUnit, FetchPriority.BULK);
       }
       data.put(companySymbol + "_priceList", priceRange);
     }
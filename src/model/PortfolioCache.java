@@ -0,0 +1,198 @@
+package model;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class represents the cache of portfolio transactions by portfolio name. Portfolios are read
+ * from the portfolio repository on first access and kept in least recently used order, so that
+ * only a bounded number of them is held in memory; the least recently used one is dropped, with
+ * its ledgers, once the cache is full and is read again on its next access. Portfolio names come
+ * from the listing of the repository, without reading any portfolio. The listing is kept until a
+ * portfolio is created, so that lookups do not list the repository every time.
+ */
+class PortfolioCache extends AbstractMap<String, HashMap<String, List<CompanyStock>>> {
+  private final LinkedHashMap<String, HashMap<String, List<CompanyStock>>> portfolios;
+  private PortfolioRepository portfolioRepo;
+  private Set<String> listing;
+  private int capacity;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs an empty PortfolioCache object, which holds only the portfolios put into it until
+   * it is attached to a portfolio repository.
+   *
+   * @param capacity maximum number of portfolios held in memory.
+   */
+  PortfolioCache(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    this.portfolios = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+              Map.Entry<String, HashMap<String, List<CompanyStock>>> eldest) {
+        if (size() <= PortfolioCache.this.capacity) {
+          return false;
+        }
+        Cache.ledgers.remove(eldest.getKey());
+        Cache.taxLots.remove(eldest.getKey());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Method to read the portfolios of the given repository from now on. Portfolios held so far are
+   * dropped, so they are read from the repository again on their next access.
+   *
+   * @param portfolioRepo repository from which portfolios are read.
+   * @param capacity      maximum number of portfolios held in memory.
+   */
+  synchronized void attach(PortfolioRepository portfolioRepo, int capacity) {
+    this.portfolioRepo = portfolioRepo;
+    this.capacity = Math.max(1, capacity);
+    portfolios.clear();
+    listing = null;
+  }
+
+  /**
+   * Method to list the repository again on the next lookup, once a portfolio was created in it.
+   */
+  synchronized void refreshListing() {
+    listing = null;
+  }
+
+  /**
+   * Method to get the number of accesses served from memory.
+   *
+   * @return number of cache hits.
+   */
+  synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Method to get the number of accesses which had to read the repository.
+   *
+   * @return number of cache misses.
+   */
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Method to get the transactions of a portfolio, reading the portfolio from the repository if it
+   * is not held in memory.
+   *
+   * @param name name of the portfolio.
+   * @return transactions by company symbol, null if there is no such portfolio or it is not valid.
+   */
+  @Override
+  public synchronized HashMap<String, List<CompanyStock>> get(Object name) {
+    if (portfolios.containsKey(name)) {
+      hits++;
+      return portfolios.get(name);
+    }
+    misses++;
+    if (portfolioRepo == null || !getListing().contains(name)) {
+      return null;
+    }
+    HashMap<String, List<CompanyStock>> portfolio = portfolioRepo.getPortfolio((String) name);
+    portfolios.put((String) name, portfolio);
+    return portfolio;
+  }
+
+  /**
+   * Method to append transactions written to the file of a portfolio. A portfolio held in memory
+   * is extended by them without reading its file again, any other one is read on its next access.
+   *
+   * @param name     name of the portfolio.
+   * @param appended transactions appended to the portfolio, in order.
+   */
+  synchronized void append(String name, TransactionTable appended) {
+    HashMap<String, List<CompanyStock>> portfolio = portfolios.get(name);
+    if (portfolio == null) {
+      // an invalid portfolio is read and checked again as a whole.
+      portfolios.remove(name);
+      return;
+    }
+    portfolios.put(name, TransactionTable.append(portfolio, appended));
+  }
+
+  @Override
+  public synchronized HashMap<String, List<CompanyStock>> put(String name,
+          HashMap<String, List<CompanyStock>> portfolio) {
+    return portfolios.put(name, portfolio);
+  }
+
+  @Override
+  public synchronized HashMap<String, List<CompanyStock>> remove(Object name) {
+    return portfolios.remove(name);
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object name) {
+    return portfolios.containsKey(name) || getListing().contains(name);
+  }
+
+  @Override
+  public synchronized void clear() {
+    portfolios.clear();
+  }
+
+  @Override
+  public synchronized int size() {
+    return keySet().size();
+  }
+
+  /**
+   * Method to get the names of every portfolio in the repository or in memory, without reading any
+   * portfolio.
+   *
+   * @return portfolio names.
+   */
+  @Override
+  public synchronized Set<String> keySet() {
+    Set<String> names = new TreeSet<>(getListing());
+    names.addAll(portfolios.keySet());
+    return names;
+  }
+
+  /**
+   * Method to get every portfolio, reading the ones not held in memory. Only the most recently
+   * used ones stay in memory afterwards.
+   *
+   * @return snapshot of the portfolios by name.
+   */
+  @Override
+  public synchronized Set<Entry<String, HashMap<String, List<CompanyStock>>>> entrySet() {
+    Map<String, HashMap<String, List<CompanyStock>>> snapshot = new LinkedHashMap<>();
+    for (String name : keySet()) {
+      snapshot.put(name, get(name));
+    }
+    return snapshot.entrySet();
+  }
+
+  /**
+   * Helper method to get the portfolio names of the repository, listing it only if it was not
+   * listed since the last portfolio was created.
+   *
+   * @return portfolio names, empty if no repository is attached.
+   */
+  private Set<String> getListing() {
+    if (portfolioRepo == null) {
+      return Collections.emptySet();
+    }
+    if (listing == null) {
+      listing = new HashSet<>(portfolioRepo.getListOfPortfolio());
+    }
+    return listing;
+  }
+}
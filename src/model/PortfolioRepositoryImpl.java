@@ -9,7 +9,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -17,6 +16,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.TreeMap;
 
 import model.enums.TransactionType;
 
@@ -77,6 +77,10 @@ public class PortfolioRepositoryImpl implements PortfolioRepository {
   @Override
   public String saveCompanyStock(String fileType, List<CompanyStock> stocks) {
     String filename = createPortfolio(fileType);
+    if (!filename.isEmpty()) {
+      Cache.objectStore.refreshListing();
+      Cache.objectStore.put(filename, new HashMap<>());
+    }
     saveFile(filename, stocks);
     return filename;
   }
@@ -95,7 +99,7 @@ public class PortfolioRepositoryImpl implements PortfolioRepository {
       }
       bw.newLine();
       bw.close();
-      Cache.objectStore.put(filename, readFile(fileUrl + filename));
+      appendToCache(filename, stocks);
     } catch (IOException ex) {
       // throw new RuntimeException(ex);
     }
@@ -116,15 +120,73 @@ public class PortfolioRepositoryImpl implements PortfolioRepository {
       }
       bw.close();
 
-      Cache.objectStore.put(filename, readFile(fileUrl + filename));
+      appendToCache(filename, stocks);
     } catch (IOException ex) {
       // throw new RuntimeException(ex);
     }
   }
 
+  /**
+   * Helper method to append transactions written to a portfolio file to the cached portfolio. The
+   * transactions are read back from their lines, so the cache holds the values the file holds.
+   *
+   * @param filename name of the portfolio file.
+   * @param stocks   transactions written to the file.
+   */
+  private void appendToCache(String filename, List<CompanyStock> stocks) {
+    TransactionTable appended = new TransactionTable(stocks.size());
+    for (CompanyStock companyStock : stocks) {
+      if (!addLine(appended, formatter(companyStock))) {
+        Cache.objectStore.remove(filename);
+        return;
+      }
+    }
+    Cache.objectStore.append(filename, appended);
+  }
+
+  /**
+   * Helper method to read one line of a portfolio file into a transaction table.
+   *
+   * @param table transaction table.
+   * @param line  line of the file.
+   * @return true if the line is a valid transaction, else false.
+   */
+  private boolean addLine(TransactionTable table, String line) {
+    String[] result = line.split(",");
+
+    String date;
+    String companySymbol;
+    Double quantity;
+    Double boughtPrice;
+    Double boughtValue;
+    Double commissionFees;
+    TransactionType type;
+    String companyName = Cache.companyList.get(result[2]);
+    try {
+      date = result[0];
+      companySymbol = result[2];
+      quantity = Double.parseDouble(result[3]);
+      boughtPrice = Double.parseDouble(result[4]);
+      boughtValue = Double.parseDouble(result[5]);
+      commissionFees = Double.parseDouble(result[6]);
+      type = TransactionType.valueOf(result[7]);
+    } catch (NumberFormatException nfe) {
+      return false;
+    }
+    if (companyName == null || companyName.isEmpty() || !companyName.equals(
+        result[1]) || quantity < 0 || boughtPrice < 0
+        || commissionFees < 0) {
+      return false;
+    }
+
+    table.add(date, companyName, companySymbol, quantity, boughtPrice, boughtValue, type,
+        commissionFees);
+    return true;
+  }
+
   @Override
   public HashMap<String, List<CompanyStock>> readFile(String filePath) {
-    HashMap<String, List<CompanyStock>> stocks = new HashMap<>();
+    TransactionTable table = new TransactionTable();
     Scanner sc;
     try {
       sc = new Scanner(new File(filePath));
@@ -132,56 +194,23 @@ public class PortfolioRepositoryImpl implements PortfolioRepository {
         sc.nextLine();
       }
       while (sc.hasNextLine()) {
-        String[] result = sc.nextLine().split(",");
-
-        String date;
-        String companySymbol;
-        Double quantity;
-        Double boughtPrice;
-        Double boughtValue;
-        Double commissionFees;
-        TransactionType type;
-        String companyName = Cache.companyList.get(result[2]);
-        try {
-          date = result[0];
-          companySymbol = result[2];
-          quantity = Double.parseDouble(result[3]);
-          boughtPrice = Double.parseDouble(result[4]);
-          boughtValue = Double.parseDouble(result[5]);
-          commissionFees = Double.parseDouble(result[6]);
-          type = TransactionType.valueOf(result[7]);
-        } catch (NumberFormatException nfe) {
-          return null;
-        }
-        if (companyName == null || companyName.isEmpty() || !companyName.equals(
-            result[1]) || quantity < 0 || boughtPrice < 0
-            || commissionFees < 0) {
+        if (!addLine(table, sc.nextLine())) {
           return null;
         }
-
-        CompanyStock stock = new CompanyStockImpl(date, companyName, companySymbol, quantity,
-            boughtPrice, boughtValue, type, commissionFees);
-
-        if (!stocks.containsKey(companySymbol)) {
-          List<CompanyStock> newList = new ArrayList<>();
-          newList.add(stock);
-          stocks.put(companySymbol, newList);
-        } else {
-          stocks.get(companySymbol).add(stock);
-        }
       }
       sc.close();
     } catch (FileNotFoundException ex) {
       // throw new RuntimeException(ex);
     }
 
+    HashMap<String, List<CompanyStock>> stocks = table.toPortfolio();
     for (String symbol : stocks.keySet()) {
-      HashMap<String, Double> qntyDate = new HashMap<>();
+      TreeMap<Integer, Double> qntyDate = new TreeMap<>();
 
       for (CompanyStock s : stocks.get(symbol)) {
         int sign = s.getType() == TransactionType.SELL ? -1 : 1;
         Double currentQnty = s.getQuantity() * sign;
-        String currentDate = s.getDate();
+        int currentDate = s.getEpochDay();
 
         if (!qntyDate.containsKey(currentDate)) {
           qntyDate.put(currentDate, currentQnty);
@@ -190,13 +219,10 @@ public class PortfolioRepositoryImpl implements PortfolioRepository {
         }
       }
 
-      ArrayList<String> sortedKeys = new ArrayList<>(qntyDate.keySet());
-      Collections.sort(sortedKeys);
-
       long currQnty = 0;
 
-      for (String el : sortedKeys) {
-        currQnty += qntyDate.get(el);
+      for (double el : qntyDate.values()) {
+        currQnty += el;
 
         if (currQnty < 0) {
           return null;
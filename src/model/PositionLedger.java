@@ -0,0 +1,267 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.enums.TransactionType;
+
+/**
+ * This class represents a position ledger of a portfolio. For every company it keeps the
+ * transactions sorted by date with running totals of the quantity held and of the cost paid, so
+ * the holding or the cost basis of a portfolio as of any date is a binary search instead of a
+ * replay of every transaction. Transactions added to the portfolio later are inserted into the
+ * ledger in place. Each company also has a QuantityIndex over its daily quantity for validating
+ * sales.
+ */
+class PositionLedger {
+  private final Map<String, Position> positions = new HashMap<>();
+  private HashMap<String, List<CompanyStock>> portfolio;
+
+  /**
+   * Constructs a PositionLedger object from the transactions of a portfolio.
+   *
+   * @param portfolio transactions by company symbol.
+   */
+  PositionLedger(HashMap<String, List<CompanyStock>> portfolio) {
+    this.portfolio = portfolio;
+    for (Map.Entry<String, List<CompanyStock>> entry : portfolio.entrySet()) {
+      positions.put(entry.getKey(), Position.of(entry.getValue()));
+    }
+  }
+
+  /**
+   * Method to check if the ledger was built from the given transactions.
+   *
+   * @param portfolio transactions by company symbol.
+   * @return true if the ledger is up to date with the transactions, else false.
+   */
+  boolean isOf(HashMap<String, List<CompanyStock>> portfolio) {
+    return this.portfolio == portfolio;
+  }
+
+  /**
+   * Method to move the ledger to a newer copy of its portfolio, in which transactions were only
+   * appended. Only the appended transactions of each company are inserted.
+   *
+   * @param newer transactions by company symbol, including the ones already in the ledger.
+   */
+  void update(HashMap<String, List<CompanyStock>> newer) {
+    for (Map.Entry<String, List<CompanyStock>> entry : newer.entrySet()) {
+      Position position = positions.get(entry.getKey());
+      if (position == null) {
+        positions.put(entry.getKey(), Position.of(entry.getValue()));
+        continue;
+      }
+      List<CompanyStock> stocks = entry.getValue();
+      for (int i = position.size; i < stocks.size(); i++) {
+        position.insert(stocks.get(i));
+      }
+    }
+    this.portfolio = newer;
+  }
+
+  /**
+   * Method to get the quantity of a company held at the end of a day.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @return quantity held.
+   */
+  double getQuantity(String symbol, int epochDay) {
+    Position position = positions.get(symbol);
+    if (position == null) {
+      return 0;
+    }
+    int index = position.indexOnOrBefore(epochDay);
+    // a position sold off completely is held as 0, never as -0.
+    return index < 0 || position.quantities[index] == 0 ? 0 : position.quantities[index];
+  }
+
+  /**
+   * Method to get the quantity of a company held at the end of each of the given days. Days in
+   * ascending order are answered in a single pass over the transactions of the company, together
+   * with the days.
+   *
+   * @param symbol company/Stock symbol.
+   * @param days   epoch days, preferably in ascending order.
+   * @return quantity held at the end of each day.
+   */
+  double[] getQuantities(String symbol, int[] days) {
+    double[] quantities = new double[days.length];
+    Position position = positions.get(symbol);
+    if (position == null) {
+      return quantities;
+    }
+    int index = -1;
+    for (int i = 0; i < days.length; i++) {
+      if (i > 0 && days[i] < days[i - 1]) {
+        index = position.indexOnOrBefore(days[i]);
+      } else {
+        while (index + 1 < position.size && position.days[index + 1] <= days[i]) {
+          index++;
+        }
+      }
+      // a position sold off completely is held as 0, never as -0.
+      quantities[i] = index < 0 || position.quantities[index] == 0 ? 0
+              : position.quantities[index];
+    }
+    return quantities;
+  }
+
+  /**
+   * Method to get the range-min index over the daily quantity of a company.
+   *
+   * @param symbol company/Stock symbol.
+   * @return quantity index, null if the portfolio has no transactions of the company.
+   */
+  QuantityIndex getQuantityIndex(String symbol) {
+    Position position = positions.get(symbol);
+    return position == null ? null : position.index;
+  }
+
+  /**
+   * Method to get the cost basis of the portfolio at the end of a day, that is the value of every
+   * purchase and the commission fees of every transaction up to that day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return cost basis.
+   */
+  double getCostBasis(int epochDay) {
+    double costBasis = 0;
+    for (Position position : positions.values()) {
+      int index = position.indexOnOrBefore(epochDay);
+      if (index >= 0) {
+        costBasis += position.costs[index];
+      }
+    }
+    return costBasis;
+  }
+
+  /**
+   * This class represents the date sorted transactions of a company with their running totals.
+   */
+  private static final class Position {
+    private final QuantityIndex index = new QuantityIndex();
+    private int size;
+    private int[] days;
+    private double[] quantityChanges;
+    private double[] costChanges;
+    private double[] quantities;
+    private double[] costs;
+
+    /**
+     * Constructs an empty Position object.
+     *
+     * @param capacity initial number of transactions.
+     */
+    private Position(int capacity) {
+      capacity = Math.max(capacity, 1);
+      days = new int[capacity];
+      quantityChanges = new double[capacity];
+      costChanges = new double[capacity];
+      quantities = new double[capacity];
+      costs = new double[capacity];
+    }
+
+    /**
+     * Method to build the position of a company from its transactions. Transactions on the same
+     * day keep their order.
+     *
+     * @param stocks transactions of the company.
+     * @return position.
+     */
+    static Position of(List<CompanyStock> stocks) {
+      TransactionTable.Rows rows = TransactionTable.rowsOf(stocks);
+      TransactionTable table = rows.getTable();
+      long[] order = new long[rows.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = (long) table.getDay(rows.getRow(i)) << 32 | i;
+      }
+      Arrays.sort(order);
+
+      Position position = new Position(order.length);
+      for (long key : order) {
+        int row = rows.getRow((int) key);
+        int i = position.size++;
+        position.days[i] = table.getDay(row);
+        position.quantityChanges[i] = getQuantityChange(table.getType(row),
+                table.getQuantity(row));
+        position.costChanges[i] = getCostChange(table.getType(row), table.getValue(row),
+                table.getFees(row));
+        position.index.add(position.days[i], position.quantityChanges[i]);
+      }
+      position.sum(0);
+      return position;
+    }
+
+    /**
+     * Method to insert a transaction after every transaction on or before its day.
+     *
+     * @param stock transaction.
+     */
+    void insert(CompanyStock stock) {
+      if (size == days.length) {
+        int capacity = size * 2;
+        days = Arrays.copyOf(days, capacity);
+        quantityChanges = Arrays.copyOf(quantityChanges, capacity);
+        costChanges = Arrays.copyOf(costChanges, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+      }
+      int at = indexOnOrBefore(stock.getEpochDay()) + 1;
+      int moved = size - at;
+      System.arraycopy(days, at, days, at + 1, moved);
+      System.arraycopy(quantityChanges, at, quantityChanges, at + 1, moved);
+      System.arraycopy(costChanges, at, costChanges, at + 1, moved);
+      days[at] = stock.getEpochDay();
+      quantityChanges[at] = getQuantityChange(stock.getType(), stock.getQuantity());
+      costChanges[at] = getCostChange(stock.getType(), stock.getBoughtValue(),
+              stock.getCommissionFees());
+      size++;
+      sum(at);
+      index.add(days[at], quantityChanges[at]);
+    }
+
+    /**
+     * Helper method to compute the running totals from a transaction on.
+     *
+     * @param from index of the first transaction whose totals changed.
+     */
+    private void sum(int from) {
+      for (int i = from; i < size; i++) {
+        quantities[i] = quantityChanges[i] + (i == 0 ? 0 : quantities[i - 1]);
+        costs[i] = costChanges[i] + (i == 0 ? 0 : costs[i - 1]);
+      }
+    }
+
+    /**
+     * Helper method to find the last transaction on or before a day.
+     *
+     * @param epochDay number of days since 1970-01-01.
+     * @return index of the transaction, -1 if every transaction is after the day.
+     */
+    private int indexOnOrBefore(int epochDay) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (days[mid] <= epochDay) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
+
+    private static double getQuantityChange(TransactionType type, double quantity) {
+      return type == TransactionType.SELL ? -quantity : quantity;
+    }
+
+    private static double getCostChange(TransactionType type, double value, double fees) {
+      return type == TransactionType.BUY ? value + fees : fees;
+    }
+  }
+}
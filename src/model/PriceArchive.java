@@ -0,0 +1,254 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents the on-disk price archive of a company. The archive is a binary file with a
+ * 16 byte versioned header followed by one fixed-width record per trading day, in ascending date
+ * order:
+ *
+ * <pre>
+ * header: magic "PRCA" (int), version (short), flags (short), record size (int), reserved (int)
+ * record: epoch day (int), open, high, low, close (double), volume (long)
+ * </pre>
+ *
+ * <p>The file is read through a MappedByteBuffer, so a price lookup is a binary search over the
+ * page cache without parsing anything, and daily updates are appended in place.
+ */
+class PriceArchive {
+  static final int MAGIC = 0x50524341;
+  static final short VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 44;
+  private static final short FLAG_OHLCV = 1;
+
+  private final MappedByteBuffer buffer;
+  private final int size;
+  private final boolean ohlcv;
+  private final long lastModified;
+
+  /**
+   * Constructs a PriceArchive object on a mapped archive file.
+   *
+   * @param buffer       mapped file contents.
+   * @param ohlcv        true if the records have open, high, low and volume values.
+   * @param lastModified time in milliseconds at which the file was last written.
+   */
+  private PriceArchive(MappedByteBuffer buffer, boolean ohlcv, long lastModified) {
+    this.buffer = buffer;
+    this.size = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+    this.ohlcv = ohlcv;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Method to open an archive file for reading.
+   *
+   * @param file archive file.
+   * @return price archive, null if the file does not exist or is not a valid archive of this
+   *         version.
+   */
+  static PriceArchive open(Path file) {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION
+              || buffer.getInt(8) != RECORD_SIZE) {
+        return null;
+      }
+      return new PriceArchive(buffer, (buffer.getShort(6) & FLAG_OHLCV) != 0,
+              Files.getLastModifiedTime(file).toMillis());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Method to write a price series to an archive file, replacing the file if it exists.
+   *
+   * @param file   archive file.
+   * @param series price series.
+   * @throws IOException if the file could not be written.
+   */
+  static void write(Path file, PriceSeries series) throws IOException {
+    Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putShort(VERSION).putShort(series.hasOhlcv() ? FLAG_OHLCV : 0)
+              .putInt(RECORD_SIZE).putInt(0).flip();
+      channel.write(header);
+      writeRecords(channel, series);
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Method to add newer price points to an archive file in place. The newer points overwrite every
+   * record from their first day on, since the latest data point changes until the market closes.
+   * The file only ever grows, so archives which are still mapped by readers stay valid.
+   *
+   * @param file  archive file.
+   * @param newer newer price points.
+   * @return true if the points were appended, false if the file is not a valid archive with the
+   *         same columns or would have to shrink, and has to be written again.
+   * @throws IOException if the file could not be written.
+   */
+  static boolean append(Path file, PriceSeries newer) throws IOException {
+    PriceArchive archive = open(file);
+    if (archive == null || archive.ohlcv != newer.hasOhlcv()) {
+      return false;
+    }
+    if (newer.size() == 0) {
+      return true;
+    }
+    int kept = archive.indexOnOrBefore(newer.getDay(0) - 1) + 1;
+    if (kept + newer.size() < archive.size()) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.position(HEADER_SIZE + (long) kept * RECORD_SIZE);
+      writeRecords(channel, newer);
+    }
+    return true;
+  }
+
+  /**
+   * Helper method to write the records of a price series at the current position of a channel.
+   *
+   * @param channel file channel.
+   * @param series  price series.
+   * @throws IOException if the records could not be written.
+   */
+  private static void writeRecords(FileChannel channel, PriceSeries series) throws IOException {
+    ByteBuffer records = ByteBuffer.allocate(RECORD_SIZE * 256);
+    for (int i = 0; i < series.size(); i++) {
+      if (!records.hasRemaining()) {
+        records.flip();
+        while (records.hasRemaining()) {
+          channel.write(records);
+        }
+        records.clear();
+      }
+      boolean hasOhlcv = series.hasOhlcv();
+      records.putInt(series.getDay(i))
+              .putDouble(hasOhlcv ? series.getOpen(i) : Double.NaN)
+              .putDouble(hasOhlcv ? series.getHigh(i) : Double.NaN)
+              .putDouble(hasOhlcv ? series.getLow(i) : Double.NaN)
+              .putDouble(series.getClose(i))
+              .putLong(hasOhlcv ? series.getVolume(i) : 0);
+    }
+    records.flip();
+    while (records.hasRemaining()) {
+      channel.write(records);
+    }
+  }
+
+  /**
+   * Method to get number of records in the archive.
+   *
+   * @return number of records.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Method to get the time at which the archive file was last written.
+   *
+   * @return time in milliseconds.
+   */
+  long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Method to get the date of a record.
+   *
+   * @param index index of the record.
+   * @return epoch day.
+   */
+  int getDay(int index) {
+    return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE);
+  }
+
+  /**
+   * Method to get the closing price of a record.
+   *
+   * @param index index of the record.
+   * @return closing price.
+   */
+  double getClose(int index) {
+    return buffer.getDouble(HEADER_SIZE + index * RECORD_SIZE + 28);
+  }
+
+  /**
+   * Method to find the last record on or before the given day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return index of the record, -1 if every record is after the given day.
+   */
+  int indexOnOrBefore(int epochDay) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (getDay(mid) <= epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+
+  /**
+   * Method to get the closing price on the given day, or on the last trading day before it.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return closing price, 0 if there is no price on or before the given day.
+   */
+  double getCloseOnOrBefore(int epochDay) {
+    int index = indexOnOrBefore(epochDay);
+    return index < 0 ? 0 : getClose(index);
+  }
+
+  /**
+   * Method to copy the archive into a price series, loaded at the time the file was last written.
+   *
+   * @return price series.
+   */
+  PriceSeries toSeries() {
+    int[] days = new int[size];
+    double[] opens = ohlcv ? new double[size] : null;
+    double[] highs = ohlcv ? new double[size] : null;
+    double[] lows = ohlcv ? new double[size] : null;
+    double[] closes = new double[size];
+    long[] volumes = ohlcv ? new long[size] : null;
+    for (int i = 0; i < size; i++) {
+      int position = HEADER_SIZE + i * RECORD_SIZE;
+      days[i] = buffer.getInt(position);
+      closes[i] = buffer.getDouble(position + 28);
+      if (ohlcv) {
+        opens[i] = buffer.getDouble(position + 4);
+        highs[i] = buffer.getDouble(position + 12);
+        lows[i] = buffer.getDouble(position + 20);
+        volumes[i] = buffer.getLong(position + 36);
+      }
+    }
+    PriceSeries series = ohlcv ? new PriceSeries(days, opens, highs, lows, closes, volumes)
+            : new PriceSeries(days, closes);
+    return series.withLoadedAt(lastModified);
+  }
+}
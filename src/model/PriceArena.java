@@ -0,0 +1,212 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents an off-heap price arena for a whole universe of companies. The closing
+ * prices and dates of every company are copied into one direct ByteBuffer, one block per company,
+ * and an array indexed by the ID of the company in the symbol dictionary gives the block of each
+ * company, with the offset and length of each block in two more arrays. A bar costs 12 bytes
+ * outside the Java heap instead of a boxed date and price pair, so the full listing stays resident
+ * without adding to garbage collection work.
+ */
+class PriceArena {
+  private static final int CLOSE_SIZE = 8;
+  private static final int DAY_SIZE = 4;
+
+  private final ByteBuffer buffer;
+  private final SymbolDictionary dictionary;
+  private final int[] blocks;
+  private final long[] offsets;
+  private final int[] lengths;
+
+  /**
+   * Constructs a PriceArena object.
+   *
+   * @param buffer     direct buffer with the blocks of every company.
+   * @param dictionary symbol dictionary giving the IDs of the companies.
+   * @param blocks     block number by symbol ID, -1 for companies without a block.
+   * @param offsets    byte offset of each block.
+   * @param lengths    number of bars in each block.
+   */
+  private PriceArena(ByteBuffer buffer, SymbolDictionary dictionary, int[] blocks, long[] offsets,
+                     int[] lengths) {
+    this.buffer = buffer;
+    this.dictionary = dictionary;
+    this.blocks = blocks;
+    this.offsets = offsets;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Method to build an arena from the price archives of the given companies. Companies without an
+   * archive are left out. Each block holds the closing prices followed by the epoch days, and
+   * blocks start on 8 byte boundaries so that prices are always aligned.
+   *
+   * @param dictionary symbol dictionary, companies missing from it are added.
+   * @param symbols    company/Stock symbols, usually the keys of Cache.companyList.
+   * @param archives   price archive by symbol.
+   * @return price arena.
+   */
+  static PriceArena build(SymbolDictionary dictionary, Collection<String> symbols,
+                          Map<String, PriceArchive> archives) {
+    List<String> present = new ArrayList<>();
+    for (String symbol : symbols) {
+      PriceArchive archive = archives.get(symbol);
+      if (archive != null && archive.size() > 0) {
+        present.add(symbol);
+      }
+    }
+    present.sort(null);
+
+    int[] ids = new int[present.size()];
+    for (int i = 0; i < present.size(); i++) {
+      ids[i] = dictionary.add(present.get(i), null);
+    }
+    int[] blocks = new int[dictionary.size()];
+    Arrays.fill(blocks, -1);
+    long[] offsets = new long[present.size()];
+    int[] lengths = new int[present.size()];
+    long capacity = 0;
+    for (int i = 0; i < present.size(); i++) {
+      blocks[ids[i]] = i;
+      offsets[i] = capacity;
+      lengths[i] = archives.get(present.get(i)).size();
+      capacity += ((long) lengths[i] * (CLOSE_SIZE + DAY_SIZE) + 7) & ~7L;
+    }
+    if (capacity > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Price data is too large for a single arena.");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect((int) capacity);
+    for (int i = 0; i < present.size(); i++) {
+      PriceArchive archive = archives.get(present.get(i));
+      int closes = (int) offsets[i];
+      int days = closes + lengths[i] * CLOSE_SIZE;
+      for (int j = 0; j < lengths[i]; j++) {
+        buffer.putDouble(closes + j * CLOSE_SIZE, archive.getClose(j));
+        buffer.putInt(days + j * DAY_SIZE, archive.getDay(j));
+      }
+    }
+    return new PriceArena(buffer, dictionary, blocks, offsets, lengths);
+  }
+
+  /**
+   * Method to check if the arena has prices of a company on or after the given day, so that a
+   * lookup on that day cannot be missing a newer price.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @return true if the arena can serve the lookup, else false.
+   */
+  boolean covers(String symbol, int epochDay) {
+    return covers(dictionary.getId(symbol), epochDay);
+  }
+
+  /**
+   * Method to check if the arena has prices of a company on or after the given day.
+   *
+   * @param symbolId ID of the company in the symbol dictionary.
+   * @param epochDay number of days since 1970-01-01.
+   * @return true if the arena can serve the lookup, else false.
+   */
+  boolean covers(int symbolId, int epochDay) {
+    int block = getBlock(symbolId);
+    return block >= 0 && getDay(block, lengths[block] - 1) >= epochDay;
+  }
+
+  /**
+   * Method to get the closing price of a company on the given day, or on the last trading day
+   * before it.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @return closing price, 0 if there is no price on or before the given day.
+   */
+  double getCloseOnOrBefore(String symbol, int epochDay) {
+    return getCloseOnOrBefore(dictionary.getId(symbol), epochDay);
+  }
+
+  /**
+   * Method to get the closing price of a company on the given day, or on the last trading day
+   * before it.
+   *
+   * @param symbolId ID of the company in the symbol dictionary.
+   * @param epochDay number of days since 1970-01-01.
+   * @return closing price, 0 if there is no price on or before the given day.
+   */
+  double getCloseOnOrBefore(int symbolId, int epochDay) {
+    int block = getBlock(symbolId);
+    if (block < 0) {
+      return 0;
+    }
+    int low = 0;
+    int high = lengths[block] - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (getDay(block, mid) <= epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high < 0 ? 0 : buffer.getDouble((int) offsets[block] + high * CLOSE_SIZE);
+  }
+
+  /**
+   * Helper method to get the block of a company.
+   *
+   * @param symbolId ID of the company in the symbol dictionary.
+   * @return block number, -1 if the arena has no prices of the company.
+   */
+  private int getBlock(int symbolId) {
+    return symbolId >= 0 && symbolId < blocks.length ? blocks[symbolId] : -1;
+  }
+
+  /**
+   * Helper method to get the date of a bar.
+   *
+   * @param block block number of the company.
+   * @param bar   index of the bar in the block.
+   * @return epoch day.
+   */
+  private int getDay(int block, int bar) {
+    return buffer.getInt((int) offsets[block] + lengths[block] * CLOSE_SIZE + bar * DAY_SIZE);
+  }
+
+  /**
+   * Method to get the number of companies in the arena.
+   *
+   * @return number of companies.
+   */
+  int getSymbolCount() {
+    return lengths.length;
+  }
+
+  /**
+   * Method to get the number of bars held in the arena.
+   *
+   * @return number of bars.
+   */
+  long getBarCount() {
+    long count = 0;
+    for (int length : lengths) {
+      count += length;
+    }
+    return count;
+  }
+
+  /**
+   * Method to get the off-heap memory used by the arena.
+   *
+   * @return size in bytes.
+   */
+  long getByteSize() {
+    return buffer.capacity();
+  }
+}
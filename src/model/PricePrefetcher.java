@@ -0,0 +1,111 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a price prefetcher. It loads the price series of many companies into the
+ * price store in parallel as background requests, so that later valuations and performance charts
+ * are served from warm data. Progress and failures are reported on the given output.
+ */
+class PricePrefetcher {
+  private final PriceStore prices;
+  private final Appendable out;
+  private final Executor workers;
+  private final int threads;
+
+  /**
+   * Constructs a PricePrefetcher object.
+   *
+   * @param prices  price store to fill.
+   * @param out     output on which progress is reported.
+   * @param workers thread pool on which the fetches run.
+   * @param threads number of companies fetched at the same time, at most the pool size.
+   */
+  PricePrefetcher(PriceStore prices, Appendable out, Executor workers, int threads) {
+    this.prices = prices;
+    this.out = out;
+    this.workers = workers;
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * Method to prefetch the price series of the given companies, at every resolution since the
+   * coarser series are rolled up from the daily one. The companies are split into as many chains
+   * as companies may be fetched at the same time, and each chain fetches its companies one after
+   * the other on the worker threads with prefetch priority, so a prefetch never holds more
+   * workers than that and never holds back interactive requests.
+   *
+   * @param symbols company/Stock symbols.
+   * @return future completed once every company was tried, with the number of companies loaded.
+   */
+  CompletableFuture<Integer> prefetch(Collection<String> symbols) {
+    if (symbols.isEmpty()) {
+      return CompletableFuture.completedFuture(0);
+    }
+    report(String.format("Prefetching price data for %d companies.\n", symbols.size()));
+
+    List<String> order = new ArrayList<>(symbols);
+    int chains = Math.min(threads, order.size());
+    AtomicInteger loaded = new AtomicInteger();
+    CompletableFuture<?>[] fetches = new CompletableFuture<?>[chains];
+    for (int chain = 0; chain < chains; chain++) {
+      CompletableFuture<Void> fetch = CompletableFuture.completedFuture(null);
+      for (int i = chain; i < order.size(); i += chains) {
+        String symbol = order.get(i);
+        fetch = fetch.thenRunAsync(() -> fetch(symbol, loaded), workers);
+      }
+      fetches[chain] = fetch;
+    }
+
+    return CompletableFuture.allOf(fetches)
+            .thenApply(done -> {
+              report(String.format("Price data ready for %d of %d companies.\n", loaded.get(),
+                      symbols.size()));
+              return loaded.get();
+            });
+  }
+
+  /**
+   * Helper method to fetch the price series of one company, reporting a failure instead of
+   * throwing it so the other companies of its chain are still fetched.
+   *
+   * @param symbol company/Stock symbol.
+   * @param loaded number of companies loaded so far.
+   */
+  private void fetch(String symbol, AtomicInteger loaded) {
+    try {
+      if (prices.getSeries(TimeUnit.Daily, symbol, FetchPriority.PREFETCH).size() > 0) {
+        loaded.incrementAndGet();
+      } else {
+        report(String.format("No price data found for %s.\n", symbol));
+      }
+    } catch (RuntimeException e) {
+      report(String.format("Price data for %s could not be loaded: %s\n", symbol,
+              e.getMessage()));
+    }
+  }
+
+  /**
+   * Helper method to write a progress message, ignoring output errors.
+   *
+   * @param message progress message.
+   */
+  private void report(String message) {
+    synchronized (out) {
+      try {
+        out.append(message);
+      } catch (IOException e) {
+        // pass;
+      }
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import model.enums.FetchPriority;
+
+/**
+ * This class represents a price quoter. It looks up the closing prices of many companies on one
+ * day in parallel on a shared, bounded pool of threads, so valuing a portfolio takes as long as its
+ * slowest company instead of the sum of all of them. Companies without a price are reported on the
+ * given output.
+ */
+class PriceQuoter {
+  private final PriceStore prices;
+  private final Appendable out;
+  private final Executor workers;
+
+  /**
+   * Constructs a PriceQuoter object.
+   *
+   * @param prices  price store used for the lookups.
+   * @param out     output on which failures are reported.
+   * @param workers thread pool on which the lookups run.
+   */
+  PriceQuoter(PriceStore prices, Appendable out, Executor workers) {
+    this.prices = prices;
+    this.out = out;
+    this.workers = workers;
+  }
+
+  /**
+   * Method to get the closing prices of the given companies on a day, or on the last trading day
+   * before it. Every company is tried, and the prices are collected in the order of the symbols
+   * once all lookups finished.
+   *
+   * @param symbols  company/Stock symbols.
+   * @param epochDay number of days since 1970-01-01.
+   * @return closing price by symbol, 0 for a company whose price could not be found.
+   */
+  Map<String, Double> quote(Collection<String> symbols, int epochDay) {
+    Map<String, Double> quotes = new HashMap<>();
+    if (symbols.isEmpty()) {
+      return quotes;
+    }
+    List<String> order = new ArrayList<>(symbols);
+    List<CompletableFuture<Double>> lookups = new ArrayList<>();
+    for (String symbol : order) {
+      lookups.add(CompletableFuture.supplyAsync(
+          () -> prices.getClose(symbol, epochDay, FetchPriority.INTERACTIVE), workers));
+    }
+    for (int i = 0; i < order.size(); i++) {
+      String symbol = order.get(i);
+      double price = 0;
+      try {
+        price = lookups.get(i).join();
+        if (price <= 0) {
+          report(String.format("No price found for %s on %s.\n", symbol,
+                  EpochDay.format(epochDay)));
+        }
+      } catch (CompletionException e) {
+        report(String.format("Price of %s could not be loaded: %s\n", symbol,
+                e.getCause().getMessage()));
+      }
+      quotes.put(symbol, price);
+    }
+    return quotes;
+  }
+
+  /**
+   * Helper method to write a failure message, ignoring output errors.
+   *
+   * @param message failure message.
+   */
+  private void report(String message) {
+    synchronized (out) {
+      try {
+        out.append(message);
+      } catch (IOException e) {
+        // pass;
+      }
+    }
+  }
+}
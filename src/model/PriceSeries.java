@@ -0,0 +1,377 @@
+package model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import model.enums.TimeUnit;
+
+/**
+ * This class represents the parsed price history of a company stock. Dates are stored as epoch days
+ * in ascending order along with their closing prices in two parallel primitive arrays, so a price
+ * lookup is a binary search and a date range is a slice of the same arrays. Open, high, low and
+ * volume values are only present when they were asked for while parsing.
+ */
+class PriceSeries {
+  static final PriceSeries EMPTY = new PriceSeries(new int[0], new double[0]);
+
+  private final int[] days;
+  private final double[] opens;
+  private final double[] highs;
+  private final double[] lows;
+  private final double[] closes;
+  private final long[] volumes;
+  private final int from;
+  private final int to;
+  private final long loadedAt;
+
+  /**
+   * Constructs a PriceSeries object from the given dates and closing prices.
+   *
+   * @param days   epoch days sorted in ascending order.
+   * @param closes closing price for each of the days.
+   */
+  PriceSeries(int[] days, double[] closes) {
+    this(days, null, null, null, closes, null, 0, days.length, System.currentTimeMillis());
+  }
+
+  /**
+   * Constructs a PriceSeries object from the given dates and open, high, low, close and volume
+   * values.
+   *
+   * @param days    epoch days sorted in ascending order.
+   * @param opens   opening price for each of the days.
+   * @param highs   highest price for each of the days.
+   * @param lows    lowest price for each of the days.
+   * @param closes  closing price for each of the days.
+   * @param volumes traded volume for each of the days.
+   */
+  PriceSeries(int[] days, double[] opens, double[] highs, double[] lows, double[] closes,
+              long[] volumes) {
+    this(days, opens, highs, lows, closes, volumes, 0, days.length, System.currentTimeMillis());
+  }
+
+  /**
+   * Constructs a PriceSeries object which is a view on [from, to) of the given arrays.
+   *
+   * @param days     epoch days sorted in ascending order.
+   * @param opens    opening prices, null if not available.
+   * @param highs    highest prices, null if not available.
+   * @param lows     lowest prices, null if not available.
+   * @param closes   closing prices.
+   * @param volumes  traded volumes, null if not available.
+   * @param from     first index of the view.
+   * @param to       index after the last index of the view.
+   * @param loadedAt time in milliseconds at which the data was loaded.
+   */
+  private PriceSeries(int[] days, double[] opens, double[] highs, double[] lows, double[] closes,
+                      long[] volumes, int from, int to, long loadedAt) {
+    this.days = days;
+    this.opens = opens;
+    this.highs = highs;
+    this.lows = lows;
+    this.closes = closes;
+    this.volumes = volumes;
+    this.from = from;
+    this.to = to;
+    this.loadedAt = loadedAt;
+  }
+
+  /**
+   * Helper method to get the period of a time unit in which an epoch day falls. Weeks start on
+   * Monday.
+   *
+   * @param scale    time unit of the period.
+   * @param epochDay number of days since 1970-01-01.
+   * @return number of the period.
+   */
+  static int toPeriod(TimeUnit scale, int epochDay) {
+    switch (scale) {
+      case Weekly:
+        return Math.floorDiv(epochDay + 3, 7);
+      case Monthly:
+        return EpochDay.toEpochMonth(epochDay);
+      case Yearly:
+        return Math.floorDiv(EpochDay.toEpochMonth(epochDay), 12);
+      default:
+        return epochDay;
+    }
+  }
+
+  /**
+   * Method to parse the closing prices of an AlphaVantage time series response.
+   *
+   * @param data response string.
+   * @return parsed price series, empty if response has no price data.
+   */
+  static PriceSeries parse(String data) {
+    return parse(data, false);
+  }
+
+  /**
+   * Method to parse an AlphaVantage time series response.
+   *
+   * @param data      response string.
+   * @param withOhlcv true to also parse open, high, low and volume values.
+   * @return parsed price series, empty if response has no price data.
+   */
+  static PriceSeries parse(String data, boolean withOhlcv) {
+    if (!CachedAPIRequests.hasTimeSeries(data)) {
+      return EMPTY;
+    }
+    try {
+      return TimeSeriesParser.parse(new StringReader(data), withOhlcv);
+    } catch (IOException e) {
+      return EMPTY;
+    }
+  }
+
+  /**
+   * Method to get number of price points in the series.
+   *
+   * @return number of price points.
+   */
+  int size() {
+    return to - from;
+  }
+
+  /**
+   * Method to get the epoch day of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return epoch day.
+   */
+  int getDay(int i) {
+    return days[from + i];
+  }
+
+  /**
+   * Method to get the closing price of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return closing price.
+   */
+  double getClose(int i) {
+    return closes[from + i];
+  }
+
+  /**
+   * Method to check if open, high, low and volume values are available.
+   *
+   * @return true if available, else false.
+   */
+  boolean hasOhlcv() {
+    return opens != null;
+  }
+
+  /**
+   * Method to get the opening price of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return opening price.
+   */
+  double getOpen(int i) {
+    return opens[from + i];
+  }
+
+  /**
+   * Method to get the highest price of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return highest price.
+   */
+  double getHigh(int i) {
+    return highs[from + i];
+  }
+
+  /**
+   * Method to get the lowest price of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return lowest price.
+   */
+  double getLow(int i) {
+    return lows[from + i];
+  }
+
+  /**
+   * Method to get the traded volume of the i-th price point.
+   *
+   * @param i index of price point.
+   * @return traded volume.
+   */
+  long getVolume(int i) {
+    return volumes[from + i];
+  }
+
+  /**
+   * Method to get the time at which this series was loaded.
+   *
+   * @return time in milliseconds.
+   */
+  long getLoadedAt() {
+    return loadedAt;
+  }
+
+  /**
+   * Method to find the last price point on or before the given day.
+   *
+   * @param epochDay epoch day.
+   * @return index of the price point, -1 if there is none.
+   */
+  int indexOnOrBefore(int epochDay) {
+    int idx = Arrays.binarySearch(days, from, to, epochDay);
+    if (idx < 0) {
+      idx = -idx - 2;
+    }
+    return idx < from ? -1 : idx - from;
+  }
+
+  /**
+   * Method to get the last closing price on or before the given day.
+   *
+   * @param epochDay epoch day.
+   * @return closing price, 0 if there is no price on or before the day.
+   */
+  double getCloseOnOrBefore(int epochDay) {
+    int idx = indexOnOrBefore(epochDay);
+    return idx < 0 ? 0 : getClose(idx);
+  }
+
+  /**
+   * Method to get the last closing price on or before each of the given days, in a single pass
+   * over the price points.
+   *
+   * @param epochDays epoch days in ascending order.
+   * @return closing price for each day, 0 if there is no price on or before the day.
+   */
+  double[] getClosesOnOrBefore(int[] epochDays) {
+    double[] closes = new double[epochDays.length];
+    int idx = -1;
+    for (int i = 0; i < epochDays.length; i++) {
+      while (idx + 1 < size() && getDay(idx + 1) <= epochDays[i]) {
+        idx++;
+      }
+      closes[i] = idx < 0 ? 0 : getClose(idx);
+    }
+    return closes;
+  }
+
+  /**
+   * Method to get the price points between the given days, both days included. The returned series
+   * shares the arrays of this series.
+   *
+   * @param startDay first epoch day of the range.
+   * @param endDay   last epoch day of the range.
+   * @return price series for the range.
+   */
+  PriceSeries slice(int startDay, int endDay) {
+    int start = from + indexOnOrBefore(startDay - 1) + 1;
+    int end = from + indexOnOrBefore(endDay) + 1;
+    return new PriceSeries(days, opens, highs, lows, closes, volumes, start, Math.max(start, end),
+            loadedAt);
+  }
+
+  /**
+   * Method to get a copy of this series with a different load time, used for series read from a
+   * file whose age is known.
+   *
+   * @param time time in milliseconds at which the data was loaded.
+   * @return price series with the given load time.
+   */
+  PriceSeries withLoadedAt(long time) {
+    return new PriceSeries(days, opens, highs, lows, closes, volumes, from, to, time);
+  }
+
+  /**
+   * Method to merge newer price points into this series. The newer series replaces every point of
+   * this series from its first day on, since the latest data point (and for monthly data, its date)
+   * changes until the period closes. Open, high, low and volume values are kept only if both series
+   * have them.
+   *
+   * @param newer newer price points.
+   * @return merged price series.
+   */
+  PriceSeries merge(PriceSeries newer) {
+    if (newer.size() == 0) {
+      return this;
+    }
+    int kept = indexOnOrBefore(newer.getDay(0) - 1) + 1;
+    int n = kept + newer.size();
+    int[] mergedDays = new int[n];
+    double[] mergedCloses = new double[n];
+    System.arraycopy(days, from, mergedDays, 0, kept);
+    System.arraycopy(closes, from, mergedCloses, 0, kept);
+    System.arraycopy(newer.days, newer.from, mergedDays, kept, newer.size());
+    System.arraycopy(newer.closes, newer.from, mergedCloses, kept, newer.size());
+    if (!hasOhlcv() || !newer.hasOhlcv()) {
+      return new PriceSeries(mergedDays, mergedCloses);
+    }
+
+    double[] mergedOpens = new double[n];
+    double[] mergedHighs = new double[n];
+    double[] mergedLows = new double[n];
+    long[] mergedVolumes = new long[n];
+    System.arraycopy(opens, from, mergedOpens, 0, kept);
+    System.arraycopy(highs, from, mergedHighs, 0, kept);
+    System.arraycopy(lows, from, mergedLows, 0, kept);
+    System.arraycopy(volumes, from, mergedVolumes, 0, kept);
+    System.arraycopy(newer.opens, newer.from, mergedOpens, kept, newer.size());
+    System.arraycopy(newer.highs, newer.from, mergedHighs, kept, newer.size());
+    System.arraycopy(newer.lows, newer.from, mergedLows, kept, newer.size());
+    System.arraycopy(newer.volumes, newer.from, mergedVolumes, kept, newer.size());
+    return new PriceSeries(mergedDays, mergedOpens, mergedHighs, mergedLows, mergedCloses,
+            mergedVolumes);
+  }
+
+  /**
+   * Method to roll this series up into one price point per period of the given time unit. Each
+   * point is dated at the last day of the period with data and closes at that day's price, just
+   * like the weekly and monthly AlphaVantage series; open, high, low and volume values, if present,
+   * cover the whole period.
+   *
+   * @param scale time unit of the periods.
+   * @return rolled up price series, loaded at the same time as this series.
+   */
+  PriceSeries rollup(TimeUnit scale) {
+    int n = size();
+    int[] periodDays = new int[n];
+    double[] periodCloses = new double[n];
+    double[] periodOpens = hasOhlcv() ? new double[n] : null;
+    double[] periodHighs = hasOhlcv() ? new double[n] : null;
+    double[] periodLows = hasOhlcv() ? new double[n] : null;
+    long[] periodVolumes = hasOhlcv() ? new long[n] : null;
+
+    int count = 0;
+    int lastPeriod = 0;
+    for (int i = 0; i < n; i++) {
+      int period = toPeriod(scale, getDay(i));
+      if (count == 0 || period != lastPeriod) {
+        if (hasOhlcv()) {
+          periodOpens[count] = getOpen(i);
+          periodHighs[count] = getHigh(i);
+          periodLows[count] = getLow(i);
+        }
+        count++;
+        lastPeriod = period;
+      } else if (hasOhlcv()) {
+        periodHighs[count - 1] = Math.max(periodHighs[count - 1], getHigh(i));
+        periodLows[count - 1] = Math.min(periodLows[count - 1], getLow(i));
+      }
+      periodDays[count - 1] = getDay(i);
+      periodCloses[count - 1] = getClose(i);
+      if (hasOhlcv()) {
+        periodVolumes[count - 1] += getVolume(i);
+      }
+    }
+
+    if (!hasOhlcv()) {
+      return new PriceSeries(Arrays.copyOf(periodDays, count), null, null, null,
+              Arrays.copyOf(periodCloses, count), null, 0, count, loadedAt);
+    }
+    return new PriceSeries(Arrays.copyOf(periodDays, count), Arrays.copyOf(periodOpens, count),
+            Arrays.copyOf(periodHighs, count), Arrays.copyOf(periodLows, count),
+            Arrays.copyOf(periodCloses, count), Arrays.copyOf(periodVolumes, count), 0, count,
+            loadedAt);
+  }
+}
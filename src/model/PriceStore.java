@@ -0,0 +1,343 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents the price store of the model. It fetches the price history of a company
+ * through an APIRequests object, parses it once into a PriceSeries and keeps it in the shared
+ * Cache.priceStore registry, so every later valuation of the same company is an in-memory lookup.
+ * Only daily prices are fetched; weekly, monthly and yearly series are rolled up from them locally,
+ * so every resolution of a company costs a single API call. The daily history is also saved in a
+ * memory-mapped PriceArchive, so a price lookup after a restart needs no parsing and a stale series
+ * is refreshed by fetching only the latest data points and appending them; the full history is
+ * downloaded only for a company seen for the first time or when the latest data points do not reach
+ * back to the saved history. Daily series which have not been loaded for a while are kept
+ * compressed in Cache.coldPrices.
+ */
+class PriceStore {
+  private static final String DEFAULT_ARCHIVE_PATH = "/Applications/priceArchive/";
+  private static final int DEFAULT_HOT_SERIES = 64;
+  private static final int DEFAULT_RETRY_MINUTES = 15;
+
+  private final APIRequests api;
+  private final long ttlMillis;
+  private final long retryMillis;
+  private final int hotLimit;
+  private final Path archiveDir;
+  // time at which the last refresh of a stale series failed, by series key.
+  private final Map<String, Long> failedRefreshes = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a PriceStore object and initializes the API used for fetching price data. Parsed
+   * series are refreshed after the configured priceCacheTtlMinutes, or priceRetryMinutes after a
+   * failed refresh, and archived in the configured priceArchivePath, and at most hotPriceSeries
+   * daily series are kept uncompressed.
+   *
+   * @param api APIRequests object.
+   */
+  PriceStore(APIRequests api) {
+    this.api = api;
+    this.ttlMillis = Long.parseLong(Cache.getProperty("priceCacheTtlMinutes",
+            String.valueOf(CachedAPIRequests.DEFAULT_TTL_MINUTES))) * 60 * 1000;
+    this.retryMillis = Long.parseLong(Cache.getProperty("priceRetryMinutes",
+            String.valueOf(DEFAULT_RETRY_MINUTES))) * 60 * 1000;
+    this.hotLimit = Integer.parseInt(Cache.getProperty("hotPriceSeries",
+            String.valueOf(DEFAULT_HOT_SERIES)));
+    this.archiveDir = Paths.get(Cache.getProperty("priceArchivePath", DEFAULT_ARCHIVE_PATH));
+    try {
+      Files.createDirectories(archiveDir);
+    } catch (IOException io) {
+      // pass;
+    }
+  }
+
+  /**
+   * Method to get the price series of a company for a time unit. Only the daily series is fetched;
+   * the weekly, monthly and yearly series are rolled up from it whenever it is loaded.
+   *
+   * @param scale    time unit of the price data.
+   * @param symbol   company/Stock symbol.
+   * @param priority priority of the fetch if the series has to be fetched.
+   * @return price series, empty if no price data could be found.
+   */
+  PriceSeries getSeries(TimeUnit scale, String symbol, FetchPriority priority) {
+    PriceSeries daily = getDailySeries(symbol, priority);
+    if (scale == TimeUnit.Daily || daily.size() == 0) {
+      return daily;
+    }
+    PriceSeries series = Cache.priceStore.get(symbol + "_" + scale);
+    if (series == null || series.getLoadedAt() != daily.getLoadedAt()) {
+      series = putRollups(symbol, daily).get(scale);
+    }
+    return series;
+  }
+
+  /**
+   * Method to get the closing price of a company on a day, or on the last trading day before it.
+   * Days covered by the shared price arena are served from it. A company whose series is not in
+   * memory uncompressed is looked up in its compressed series or its mapped archive without loading
+   * it, as long as that data is fresh.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @param priority priority of the fetch if the series has to be fetched.
+   * @return closing price, 0 if there is no price on or before the given day.
+   */
+  double getClose(String symbol, int epochDay, FetchPriority priority) {
+    PriceArena arena = Cache.priceArena;
+    if (arena != null && arena.covers(symbol, epochDay)) {
+      return arena.getCloseOnOrBefore(symbol, epochDay);
+    }
+    String key = symbol + "_" + TimeUnit.Daily;
+    PriceSeries series = Cache.priceStore.get(key);
+    if (series != null && isFresh(series.getLoadedAt())) {
+      return series.getCloseOnOrBefore(epochDay);
+    }
+    if (series == null) {
+      CompressedPriceSeries cold = Cache.coldPrices.get(key);
+      if (cold != null && isFresh(cold.getLoadedAt())) {
+        return cold.getCloseOnOrBefore(epochDay);
+      }
+      PriceArchive archive = Cache.priceArchives.get(key);
+      if (archive == null) {
+        archive = PriceArchive.open(getArchiveFile(key));
+        if (archive != null) {
+          Cache.priceArchives.put(key, archive);
+        }
+      }
+      if (archive != null && isFresh(archive.getLastModified())) {
+        return archive.getCloseOnOrBefore(epochDay);
+      }
+    }
+    return getDailySeries(symbol, priority).getCloseOnOrBefore(epochDay);
+  }
+
+  /**
+   * Method to get the closing price of a company on each of the given days, or on the last trading
+   * day before it. A daily series in memory is walked once for all the days, any other price data
+   * is looked up day by day as in getClose.
+   *
+   * @param symbol    company/Stock symbol.
+   * @param epochDays epoch days in ascending order.
+   * @param priority  priority of the fetch if the series has to be fetched.
+   * @return closing price for each day, 0 if there is no price on or before the day.
+   */
+  double[] getCloses(String symbol, int[] epochDays, FetchPriority priority) {
+    double[] closes = new double[epochDays.length];
+    if (epochDays.length == 0) {
+      return closes;
+    }
+    // the first lookup loads the price data of the company if it is not available yet.
+    closes[0] = getClose(symbol, epochDays[0], priority);
+    PriceArena arena = Cache.priceArena;
+    PriceSeries series = Cache.priceStore.get(symbol + "_" + TimeUnit.Daily);
+    if ((arena == null || !arena.covers(symbol, epochDays[0])) && series != null
+            && isFresh(series.getLoadedAt())) {
+      return series.getClosesOnOrBefore(epochDays);
+    }
+    for (int i = 1; i < epochDays.length; i++) {
+      closes[i] = getClose(symbol, epochDays[i], priority);
+    }
+    return closes;
+  }
+
+  /**
+   * Method to build an off-heap price arena from the archived daily prices of the given companies.
+   * Companies without an archive are left out.
+   *
+   * @param symbols company/Stock symbols.
+   * @return price arena.
+   */
+  PriceArena loadArena(Collection<String> symbols) {
+    Map<String, PriceArchive> archives = new HashMap<>();
+    for (String symbol : symbols) {
+      PriceArchive archive = PriceArchive.open(getArchiveFile(symbol + "_" + TimeUnit.Daily));
+      if (archive != null) {
+        archives.put(symbol, archive);
+      }
+    }
+    return PriceArena.build(Cache.symbols, symbols, archives);
+  }
+
+  /**
+   * Helper method to check if data loaded at the given time is still fresh.
+   *
+   * @param loadedAt time in milliseconds at which the data was loaded.
+   * @return true if the data does not have to be refreshed, else false.
+   */
+  private boolean isFresh(long loadedAt) {
+    return System.currentTimeMillis() - loadedAt < ttlMillis;
+  }
+
+  /**
+   * Helper method to check if the last refresh of a series failed less than priceRetryMinutes ago.
+   *
+   * @param key symbol and time unit of the series.
+   * @return true if the series must not be refreshed yet, else false.
+   */
+  private boolean isRetryPending(String key) {
+    Long failedAt = failedRefreshes.get(key);
+    return failedAt != null && System.currentTimeMillis() - failedAt < retryMillis;
+  }
+
+  /**
+   * Helper method to get the daily price series of a company, refreshing it if it is stale. A
+   * refresh which gives no data or data older than the series keeps the series as it is, without
+   * rewriting its archive or its load time.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param priority priority of the fetch if the series has to be fetched.
+   * @return daily price series, empty if no price data could be found.
+   */
+  private PriceSeries getDailySeries(String symbol, FetchPriority priority) {
+    String key = symbol + "_" + TimeUnit.Daily;
+    PriceSeries series = Cache.priceStore.get(key);
+    if (series == null) {
+      CompressedPriceSeries cold = Cache.coldPrices.remove(key);
+      if (cold != null) {
+        series = cold.decode();
+      } else {
+        PriceArchive archive = PriceArchive.open(getArchiveFile(key));
+        series = archive == null ? null : archive.toSeries();
+      }
+    }
+    if (series != null && isFresh(series.getLoadedAt())) {
+      if (Cache.priceStore.putIfAbsent(key, series) == null) {
+        compressColdSeries(key);
+      }
+      return series;
+    }
+
+    if (series != null && series.size() > 0 && isRetryPending(key)) {
+      // a refresh of this series failed a short while ago, the stale series is served until then.
+      Cache.priceStore.putIfAbsent(key, series);
+      return series;
+    }
+
+    int lastDay = series == null || series.size() == 0 ? Integer.MIN_VALUE
+            : series.getDay(series.size() - 1);
+    PriceSeries recent = null;
+    PriceSeries fetched = null;
+    if (lastDay != Integer.MIN_VALUE) {
+      recent = PriceSeries.parse(
+              api.getRecentTimeSeriesData(TimeUnit.Daily, symbol, priority), true);
+      if (recent.size() > 0 && recent.getDay(0) <= lastDay
+              && recent.getDay(recent.size() - 1) >= lastDay) {
+        fetched = series.merge(recent);
+      } else {
+        recent = null;
+      }
+    }
+    if (fetched == null) {
+      fetched = PriceSeries.parse(api.getTimeSeriesData(TimeUnit.Daily, symbol, priority), true);
+    }
+
+    // an empty or older response, such as a cached one served offline, never replaces newer data.
+    if (fetched.size() == 0 || fetched.getDay(fetched.size() - 1) < lastDay) {
+      if (lastDay != Integer.MIN_VALUE) {
+        failedRefreshes.put(key, System.currentTimeMillis());
+      }
+      return series == null ? PriceSeries.EMPTY : series;
+    }
+    failedRefreshes.remove(key);
+    Cache.priceStore.put(key, fetched);
+    putRollups(symbol, fetched);
+    writeArchive(key, fetched, recent);
+    compressColdSeries(key);
+    return fetched;
+  }
+
+  /**
+   * Helper method to compress the daily series loaded the longest time ago once more than
+   * hotPriceSeries daily series are in memory. Its rolled up series are dropped and built again
+   * if the series is used again.
+   *
+   * @param added key of the series just added, which is never compressed.
+   */
+  private void compressColdSeries(String added) {
+    String suffix = "_" + TimeUnit.Daily;
+    String oldest = null;
+    long oldestLoadedAt = Long.MAX_VALUE;
+    int hot = 0;
+    for (Map.Entry<String, PriceSeries> entry : Cache.priceStore.entrySet()) {
+      if (entry.getKey().endsWith(suffix)) {
+        hot++;
+        if (!entry.getKey().equals(added) && entry.getValue().getLoadedAt() < oldestLoadedAt) {
+          oldest = entry.getKey();
+          oldestLoadedAt = entry.getValue().getLoadedAt();
+        }
+      }
+    }
+    if (hot <= hotLimit || oldest == null) {
+      return;
+    }
+    PriceSeries series = Cache.priceStore.get(oldest);
+    if (series != null && Cache.priceStore.remove(oldest, series)) {
+      Cache.coldPrices.put(oldest, CompressedPriceSeries.encode(series));
+      String symbol = oldest.substring(0, oldest.length() - suffix.length());
+      Cache.priceStore.remove(symbol + "_" + TimeUnit.Weekly);
+      Cache.priceStore.remove(symbol + "_" + TimeUnit.Monthly);
+      Cache.priceStore.remove(symbol + "_" + TimeUnit.Yearly);
+    }
+  }
+
+  /**
+   * Helper method to roll a daily price series up into weekly, monthly and yearly series and put
+   * them in the price store. Yearly points are rolled up from the monthly ones.
+   *
+   * @param symbol company/Stock symbol.
+   * @param daily  daily price series.
+   * @return rolled up series by time unit.
+   */
+  private Map<TimeUnit, PriceSeries> putRollups(String symbol, PriceSeries daily) {
+    Map<TimeUnit, PriceSeries> rollups = new EnumMap<>(TimeUnit.class);
+    rollups.put(TimeUnit.Weekly, daily.rollup(TimeUnit.Weekly));
+    rollups.put(TimeUnit.Monthly, daily.rollup(TimeUnit.Monthly));
+    rollups.put(TimeUnit.Yearly, rollups.get(TimeUnit.Monthly).rollup(TimeUnit.Yearly));
+    for (Map.Entry<TimeUnit, PriceSeries> rollup : rollups.entrySet()) {
+      Cache.priceStore.put(symbol + "_" + rollup.getKey(), rollup.getValue());
+    }
+    return rollups;
+  }
+
+  /**
+   * Helper method to get the archive file of a series.
+   *
+   * @param key symbol and time unit of the series.
+   * @return archive file path.
+   */
+  private Path getArchiveFile(String key) {
+    return archiveDir.resolve(key + ".prc");
+  }
+
+  /**
+   * Helper method to save a price series in its archive. Newer points merged into the series are
+   * appended to the existing archive, otherwise the archive is written again.
+   *
+   * @param key    symbol and time unit of the series.
+   * @param series price series.
+   * @param recent newer points merged into the series, null if the series was fetched in full.
+   */
+  private void writeArchive(String key, PriceSeries series, PriceSeries recent) {
+    Path file = getArchiveFile(key);
+    try {
+      if (recent == null || !PriceArchive.append(file, recent)) {
+        PriceArchive.write(file, series);
+      }
+    } catch (IOException e) {
+      // pass;
+    }
+    Cache.priceArchives.remove(key);
+  }
+}
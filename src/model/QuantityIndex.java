@@ -0,0 +1,169 @@
+package model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class represents a range-min index over the quantity of a company held day by day. It is a
+ * balanced search tree keyed by date in which every subtree knows the net quantity change of its
+ * days and the lowest running quantity within them, so the quantity held on a day and the lowest
+ * quantity held on any later day are both found on one path from the root, and a transaction on
+ * any date is added in logarithmic time.
+ */
+class QuantityIndex {
+  private Node root;
+
+  /**
+   * Method to add a quantity change on a day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @param change   quantity bought, negative if sold.
+   */
+  void add(int epochDay, double change) {
+    root = add(root, epochDay, change);
+  }
+
+  /**
+   * Method to get the quantity held at the end of a day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return quantity held.
+   */
+  double getQuantityOnOrBefore(int epochDay) {
+    double quantity = 0;
+    Node node = root;
+    while (node != null) {
+      if (node.day <= epochDay) {
+        quantity += sum(node.left) + node.change;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return quantity;
+  }
+
+  /**
+   * Method to get the lowest quantity held at the end of any day after the given day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return lowest quantity held, Double.MAX_VALUE if nothing changes after the day.
+   */
+  double getMinimumAfter(int epochDay) {
+    double minimum = Double.MAX_VALUE;
+    double before = 0;
+    Node node = root;
+    while (node != null) {
+      double atNode = before + sum(node.left) + node.change;
+      if (node.day <= epochDay) {
+        before = atNode;
+        node = node.right;
+      } else {
+        minimum = Math.min(minimum, atNode);
+        if (node.right != null) {
+          minimum = Math.min(minimum, atNode + node.right.minimum);
+        }
+        node = node.left;
+      }
+    }
+    return minimum;
+  }
+
+  /**
+   * Method to get the quantity held after every day.
+   *
+   * @return quantity held.
+   */
+  double getTotal() {
+    return sum(root);
+  }
+
+  /**
+   * Helper method to add a quantity change to a subtree.
+   *
+   * @param node     root of the subtree.
+   * @param epochDay number of days since 1970-01-01.
+   * @param change   quantity change.
+   * @return new root of the subtree.
+   */
+  private static Node add(Node node, int epochDay, double change) {
+    if (node == null) {
+      return new Node(epochDay, change);
+    }
+    if (epochDay == node.day) {
+      node.change += change;
+    } else if (epochDay < node.day) {
+      node.left = add(node.left, epochDay, change);
+      if (node.left.priority > node.priority) {
+        node = rotateRight(node);
+      }
+    } else {
+      node.right = add(node.right, epochDay, change);
+      if (node.right.priority > node.priority) {
+        node = rotateLeft(node);
+      }
+    }
+    node.update();
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    node.left = left.right;
+    node.update();
+    left.right = node;
+    return left;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    node.right = right.left;
+    node.update();
+    right.left = node;
+    return right;
+  }
+
+  private static double sum(Node node) {
+    return node == null ? 0 : node.sum;
+  }
+
+  /**
+   * This class represents one day of the index.
+   */
+  private static final class Node {
+    private final int day;
+    private final int priority = ThreadLocalRandom.current().nextInt();
+    private double change;
+    private double sum;
+    // lowest running quantity at the end of a day of the subtree, from the start of the subtree.
+    private double minimum;
+    private Node left;
+    private Node right;
+
+    /**
+     * Constructs a Node object.
+     *
+     * @param day    number of days since 1970-01-01.
+     * @param change net quantity change of the day.
+     */
+    private Node(int day, double change) {
+      this.day = day;
+      this.change = change;
+      update();
+    }
+
+    /**
+     * Helper method to compute the totals of the subtree from its children.
+     */
+    private void update() {
+      double atNode = sum(left) + change;
+      sum = atNode + sum(right);
+      minimum = atNode;
+      if (left != null) {
+        minimum = Math.min(minimum, left.minimum);
+      }
+      if (right != null) {
+        minimum = Math.min(minimum, atNode + right.minimum);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a recording API request object. It decorates another APIRequests object and
+ * saves every response with price data in a fixtures directory, along with the time the request
+ * took, so that the same responses can later be served offline by ReplayAPIRequests. Responses of
+ * the compact requests which refresh a stored history are saved under their own fixture names.
+ */
+public class RecordingAPIRequests implements APIRequests {
+  static final String LATENCY_FILE = "latency.csv";
+  static final String RECENT = "recent";
+
+  private final APIRequests api;
+  private final Path fixturesDir;
+
+  /**
+   * Constructs a RecordingAPIRequests object.
+   *
+   * @param api          APIRequests object whose responses are recorded.
+   * @param fixturesPath directory in which responses are saved.
+   */
+  public RecordingAPIRequests(APIRequests api, String fixturesPath) {
+    this.api = api;
+    this.fixturesDir = Paths.get(fixturesPath);
+    try {
+      Files.createDirectories(fixturesDir);
+    } catch (IOException io) {
+      // pass;
+    }
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getTimeSeriesData(scale, symbol, FetchPriority.INTERACTIVE);
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    long start = System.nanoTime();
+    String data = api.getTimeSeriesData(scale, symbol, priority);
+    record(CachedAPIRequests.getFileName(scale, symbol), data,
+            String.format("%s,%s", symbol, scale), start);
+    return data;
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    long start = System.nanoTime();
+    String data = api.getRecentTimeSeriesData(scale, symbol, priority);
+    record(getRecentFileName(scale, symbol), data,
+            String.format("%s,%s,%s", symbol, scale, RECENT), start);
+    return data;
+  }
+
+  /**
+   * Method to get the fixture file name of a compact response.
+   *
+   * @param scale  date range.
+   * @param symbol Company/Stock symbol.
+   * @return file name.
+   */
+  static String getRecentFileName(TimeUnit scale, String symbol) {
+    return RECENT + "_" + CachedAPIRequests.getFileName(scale, symbol);
+  }
+
+  /**
+   * Helper method to save a response with price data and the time its request took.
+   *
+   * @param fileName fixture file name.
+   * @param data     response.
+   * @param request  symbol and scale of the request, followed by its kind for compact requests.
+   * @param start    time in nanoseconds at which the request started.
+   */
+  private void record(String fileName, String data, String request, long start) {
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    if (!CachedAPIRequests.hasTimeSeries(data)) {
+      return;
+    }
+    try {
+      Files.writeString(fixturesDir.resolve(fileName), data, StandardCharsets.UTF_8);
+      synchronized (this) {
+        Files.writeString(fixturesDir.resolve(LATENCY_FILE),
+                String.format("%s,%d\n", request, elapsedMillis),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      }
+    } catch (IOException io) {
+      // pass;
+    }
+  }
+}
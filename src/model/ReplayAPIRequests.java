@@ -0,0 +1,166 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a replaying API request object. It serves responses saved by
+ * RecordingAPIRequests (or by CachedAPIRequests) from a fixtures directory without any network
+ * access. Compact requests are served their own recorded responses, or the full history when none
+ * was recorded. A latency and a failure rate can be injected to simulate a slow or unreliable
+ * network; a failed request gives an empty response, just like a failed connection in
+ * APIRequestsImpl.
+ */
+public class ReplayAPIRequests implements APIRequests {
+  private final Path fixturesDir;
+  private final long latencyMillis;
+  private final long jitterMillis;
+  private final double failureRate;
+  private final Random random;
+  private final Map<String, Long> recordedLatency;
+
+  /**
+   * Constructs a ReplayAPIRequests object which serves the fixtures at full speed and never fails.
+   *
+   * @param fixturesPath directory of the recorded responses.
+   */
+  public ReplayAPIRequests(String fixturesPath) {
+    this(fixturesPath, 0, 0, 0, 0);
+  }
+
+  /**
+   * Constructs a ReplayAPIRequests object with injected latency and failures. The same seed always
+   * gives the same sequence of delays and failures.
+   *
+   * @param fixturesPath  directory of the recorded responses.
+   * @param latencyMillis delay added to every request.
+   * @param jitterMillis  largest random delay added on top of the latency.
+   * @param failureRate   probability between 0 and 1 that a request fails.
+   * @param seed          seed of the random delays and failures.
+   */
+  public ReplayAPIRequests(String fixturesPath, long latencyMillis, long jitterMillis,
+                           double failureRate, long seed) {
+    this(fixturesPath, latencyMillis, jitterMillis, failureRate, seed, false);
+  }
+
+  /**
+   * Constructs a ReplayAPIRequests object.
+   *
+   * @param fixturesPath       directory of the recorded responses.
+   * @param latencyMillis      delay added to every request without a recorded latency.
+   * @param jitterMillis       largest random delay added on top of the latency.
+   * @param failureRate        probability between 0 and 1 that a request fails.
+   * @param seed               seed of the random delays and failures.
+   * @param useRecordedLatency true to delay each response by the time its recording took.
+   */
+  private ReplayAPIRequests(String fixturesPath, long latencyMillis, long jitterMillis,
+                            double failureRate, long seed, boolean useRecordedLatency) {
+    this.fixturesDir = Paths.get(fixturesPath);
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+    this.failureRate = failureRate;
+    this.random = new Random(seed);
+    this.recordedLatency = useRecordedLatency ? readLatencies() : new HashMap<>();
+  }
+
+  /**
+   * Method to create a ReplayAPIRequests object which delays every response by the time it took
+   * when it was recorded, to reproduce a recorded latency profile.
+   *
+   * @param fixturesPath directory of the recorded responses.
+   * @param failureRate  probability between 0 and 1 that a request fails.
+   * @param seed         seed of the random failures.
+   * @return replaying API request object.
+   */
+  public static ReplayAPIRequests withRecordedLatency(String fixturesPath, double failureRate,
+                                                     long seed) {
+    return new ReplayAPIRequests(fixturesPath, 0, 0, failureRate, seed, true);
+  }
+
+  /**
+   * Helper method to read the latency of every recorded response.
+   *
+   * @return map of fixture file name to latency in milliseconds.
+   */
+  private Map<String, Long> readLatencies() {
+    Map<String, Long> latencies = new HashMap<>();
+    try {
+      List<String> lines = Files.readAllLines(
+              fixturesDir.resolve(RecordingAPIRequests.LATENCY_FILE), StandardCharsets.UTF_8);
+      for (String line : lines) {
+        String[] data = line.split(",");
+        if (data.length == 3) {
+          latencies.put(CachedAPIRequests.getFileName(TimeUnit.valueOf(data[1]), data[0]),
+                  Long.parseLong(data[2]));
+        } else if (data.length == 4 && data[2].equals(RecordingAPIRequests.RECENT)) {
+          latencies.put(RecordingAPIRequests.getRecentFileName(TimeUnit.valueOf(data[1]),
+                  data[0]), Long.parseLong(data[3]));
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // pass;
+    }
+    return latencies;
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return serve(CachedAPIRequests.getFileName(scale, symbol));
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    String fileName = RecordingAPIRequests.getRecentFileName(scale, symbol);
+    if (!Files.exists(fixturesDir.resolve(fileName))) {
+      // fixtures recorded without compact responses serve the full history instead.
+      fileName = CachedAPIRequests.getFileName(scale, symbol);
+    }
+    return serve(fileName);
+  }
+
+  /**
+   * Helper method to serve a recorded response after its delay, or to fail it.
+   *
+   * @param fileName fixture file name.
+   * @return recorded response, empty if the request failed or nothing was recorded.
+   */
+  private String serve(String fileName) {
+    long delay;
+    boolean failed;
+    synchronized (random) {
+      delay = latencyMillis;
+      if (recordedLatency.containsKey(fileName)) {
+        delay = recordedLatency.get(fileName);
+      } else if (jitterMillis > 0) {
+        delay += (long) (random.nextDouble() * jitterMillis);
+      }
+      failed = failureRate > 0 && random.nextDouble() < failureRate;
+    }
+
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (failed) {
+      return "";
+    }
+    try {
+      return Files.readString(fixturesDir.resolve(fileName), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      return "";
+    }
+  }
+}
@@ -0,0 +1,338 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.enums.FetchPriority;
+import model.enums.TimeUnit;
+
+/**
+ * This class represents a quota aware fetch scheduler. It decorates another APIRequests object and
+ * queues every request by priority, handing them to the API only as fast as a token bucket sized to
+ * the AlphaVantage call limit allows. Interactive requests are dispatched before bulk strategy
+ * requests and background prefetches, and a request answered with a rate limit note or an empty
+ * response is queued again after the bucket refills instead of being returned as missing data.
+ */
+public class ScheduledAPIRequests implements APIRequests {
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int DEFAULT_CALLS_PER_MINUTE = 5;
+
+  private final APIRequests api;
+  private final int capacity;
+  private final long nanosPerToken;
+  private final PriorityBlockingQueue<FetchTask> queue;
+  private final Map<String, FetchTask> pending;
+  private final ExecutorService workers;
+  private final AtomicLong sequence;
+  private final AtomicLong completedCount;
+  private final AtomicLong retriedCount;
+
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * This class represents a queued fetch. Tasks are ordered by priority and then by the order in
+   * which they were submitted.
+   */
+  private static class FetchTask implements Comparable<FetchTask> {
+    private final String key;
+    private final TimeUnit scale;
+    private final String symbol;
+    private final boolean recent;
+    private final long order;
+    private final CompletableFuture<String> future;
+    private FetchPriority priority;
+    private int attempts;
+
+    private FetchTask(String key, TimeUnit scale, String symbol, boolean recent,
+                      FetchPriority priority, long order) {
+      this.key = key;
+      this.scale = scale;
+      this.symbol = symbol;
+      this.recent = recent;
+      this.priority = priority;
+      this.order = order;
+      this.future = new CompletableFuture<>();
+    }
+
+    @Override
+    public int compareTo(FetchTask other) {
+      int compare = priority.compareTo(other.priority);
+      return compare != 0 ? compare : Long.compare(order, other.order);
+    }
+  }
+
+  /**
+   * Constructs a ScheduledAPIRequests object which reads the allowed number of calls per minute
+   * (apiCallsPerMinute) from the application config file.
+   *
+   * @param api APIRequests object used for the actual fetch.
+   */
+  public ScheduledAPIRequests(APIRequests api) {
+    this(api, Integer.parseInt(Cache.getProperty("apiCallsPerMinute",
+            String.valueOf(DEFAULT_CALLS_PER_MINUTE))));
+  }
+
+  /**
+   * Constructs a ScheduledAPIRequests object and starts its dispatcher.
+   *
+   * @param api            APIRequests object used for the actual fetch.
+   * @param callsPerMinute number of API calls allowed per minute, also the largest burst.
+   */
+  public ScheduledAPIRequests(APIRequests api, int callsPerMinute) {
+    this.api = api;
+    this.capacity = Math.max(1, callsPerMinute);
+    this.nanosPerToken = 60_000_000_000L / capacity;
+    this.queue = new PriorityBlockingQueue<>();
+    this.pending = new HashMap<>();
+    this.workers = Executors.newFixedThreadPool(Math.min(capacity, 4), runnable -> {
+      Thread thread = new Thread(runnable, "price-fetch");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.sequence = new AtomicLong();
+    this.completedCount = new AtomicLong();
+    this.retriedCount = new AtomicLong();
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+
+    Thread dispatcher = new Thread(this::dispatch, "price-fetch-scheduler");
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  /**
+   * Helper method to check if a response should be fetched again. AlphaVantage answers with a note
+   * instead of price data once the call limit is reached, and a failed connection gives an empty
+   * response.
+   *
+   * @param data response string.
+   * @return true if the request should be retried, else false.
+   */
+  static boolean isRetryable(String data) {
+    return data == null || data.isEmpty() || (!CachedAPIRequests.hasTimeSeries(data)
+            && (data.contains("\"Note\"") || data.contains("\"Information\"")));
+  }
+
+  /**
+   * Method to queue a request for the time series data of a company. A request for a company and
+   * time unit which is already queued shares the queued fetch, which is moved up if the new request
+   * has a higher priority.
+   *
+   * @param scale    time unit of the price data.
+   * @param symbol   company/Stock symbol.
+   * @param priority priority of the request.
+   * @return future of the response string.
+   */
+  public CompletableFuture<String> submit(TimeUnit scale, String symbol, FetchPriority priority) {
+    return submit(scale, symbol, false, priority);
+  }
+
+  /**
+   * Helper method to queue a request for the full or the latest time series data of a company.
+   *
+   * @param scale    time unit of the price data.
+   * @param symbol   company/Stock symbol.
+   * @param recent   true if only the latest data points are required.
+   * @param priority priority of the request.
+   * @return future of the response string.
+   */
+  private CompletableFuture<String> submit(TimeUnit scale, String symbol, boolean recent,
+                                           FetchPriority priority) {
+    String key = symbol + "_" + scale + (recent ? "_recent" : "");
+    synchronized (pending) {
+      FetchTask task = pending.get(key);
+      if (task == null) {
+        task = new FetchTask(key, scale, symbol, recent, priority, sequence.getAndIncrement());
+        pending.put(key, task);
+        queue.put(task);
+      } else if (priority.compareTo(task.priority) < 0 && queue.remove(task)) {
+        task.priority = priority;
+        queue.put(task);
+      }
+      return task.future;
+    }
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol) {
+    return getTimeSeriesData(scale, symbol, FetchPriority.INTERACTIVE);
+  }
+
+  @Override
+  public String getTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return join(submit(scale, symbol, false, priority));
+  }
+
+  @Override
+  public String getRecentTimeSeriesData(TimeUnit scale, String symbol, FetchPriority priority) {
+    return join(submit(scale, symbol, true, priority));
+  }
+
+  /**
+   * Helper method to wait for a response, rethrowing the failure of the request if any.
+   *
+   * @param future future of the response string.
+   * @return response string.
+   */
+  private String join(CompletableFuture<String> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Method to get the number of queued requests.
+   *
+   * @return queue depth.
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Method to get the number of queued requests of a priority.
+   *
+   * @param priority fetch priority.
+   * @return queue depth for the priority.
+   */
+  public int getQueueDepth(FetchPriority priority) {
+    int depth = 0;
+    for (FetchTask task : queue) {
+      if (task.priority == priority) {
+        depth++;
+      }
+    }
+    return depth;
+  }
+
+  /**
+   * Method to get the number of requests completed by the scheduler.
+   *
+   * @return number of completed requests.
+   */
+  public long getCompletedCount() {
+    return completedCount.get();
+  }
+
+  /**
+   * Method to get the number of times a request was queued again after a rate limited or empty
+   * response.
+   *
+   * @return number of retries.
+   */
+  public long getRetriedCount() {
+    return retriedCount.get();
+  }
+
+  /**
+   * Helper method which runs on the dispatcher thread. It waits for a token before taking the most
+   * urgent task, so a request queued while waiting is still considered.
+   */
+  private void dispatch() {
+    try {
+      while (true) {
+        awaitToken();
+        FetchTask task = queue.take();
+        takeToken();
+        workers.execute(() -> run(task));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Helper method to make the API call of a task and complete its future.
+   *
+   * @param task fetch task.
+   */
+  private void run(FetchTask task) {
+    String data;
+    try {
+      data = task.recent
+              ? api.getRecentTimeSeriesData(task.scale, task.symbol, task.priority)
+              : api.getTimeSeriesData(task.scale, task.symbol, task.priority);
+    } catch (RuntimeException e) {
+      complete(task);
+      task.future.completeExceptionally(e);
+      return;
+    }
+
+    if (isRetryable(data) && ++task.attempts < MAX_ATTEMPTS) {
+      retriedCount.incrementAndGet();
+      emptyBucket();
+      queue.put(task);
+      return;
+    }
+    complete(task);
+    task.future.complete(data);
+  }
+
+  /**
+   * Helper method to remove a finished task from the pending tasks.
+   *
+   * @param task fetch task.
+   */
+  private void complete(FetchTask task) {
+    synchronized (pending) {
+      pending.remove(task.key, task);
+    }
+    completedCount.incrementAndGet();
+  }
+
+  /**
+   * Helper method to add the tokens earned since the last refill.
+   */
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+    lastRefill = now;
+  }
+
+  /**
+   * Helper method to wait until the bucket has a token.
+   *
+   * @throws InterruptedException if the dispatcher is interrupted.
+   */
+  private void awaitToken() throws InterruptedException {
+    while (true) {
+      long waitNanos;
+      synchronized (this) {
+        refill();
+        if (tokens >= 1) {
+          return;
+        }
+        waitNanos = (long) ((1 - tokens) * nanosPerToken);
+      }
+      Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+    }
+  }
+
+  /**
+   * Helper method to use a token for a dispatched request.
+   */
+  private synchronized void takeToken() {
+    refill();
+    tokens = Math.max(0, tokens - 1);
+  }
+
+  /**
+   * Helper method to empty the bucket after the API reported that the call limit was reached.
+   */
+  private synchronized void emptyBucket() {
+    refill();
+    tokens = 0;
+  }
+}
@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class represents a dictionary of company symbols. Every symbol gets a dense int ID in the
+ * order it was added, starting with the companies of listing_status.csv, so data of a company can
+ * be kept in arrays indexed by its ID and each symbol and company name string is held only once,
+ * however many transactions or price points refer to it.
+ */
+class SymbolDictionary {
+  /**
+   * ID of a symbol which is not in the dictionary.
+   */
+  static final int UNKNOWN = -1;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private String[] symbols = new String[512];
+  private String[] names = new String[512];
+  private int size;
+
+  /**
+   * Method to get the ID of a symbol, adding the symbol if it is not in the dictionary yet.
+   *
+   * @param symbol company/Stock symbol.
+   * @param name   company name, kept only if the symbol is added.
+   * @return ID of the symbol.
+   */
+  synchronized int add(String symbol, String name) {
+    Integer id = ids.get(symbol);
+    if (id != null) {
+      return id;
+    }
+    if (size == symbols.length) {
+      symbols = Arrays.copyOf(symbols, size * 2);
+      names = Arrays.copyOf(names, size * 2);
+    }
+    symbols[size] = symbol;
+    names[size] = name;
+    ids.put(symbol, size);
+    return size++;
+  }
+
+  /**
+   * Method to get the ID of a symbol.
+   *
+   * @param symbol company/Stock symbol.
+   * @return ID of the symbol, UNKNOWN if the symbol is not in the dictionary.
+   */
+  synchronized int getId(String symbol) {
+    Integer id = ids.get(symbol);
+    return id == null ? UNKNOWN : id;
+  }
+
+  /**
+   * Method to get the symbol of an ID.
+   *
+   * @param id ID of the symbol.
+   * @return company/Stock symbol.
+   */
+  synchronized String getSymbol(int id) {
+    return symbols[id];
+  }
+
+  /**
+   * Method to get the company name of an ID.
+   *
+   * @param id ID of the symbol.
+   * @return company name, null if the symbol was added without one.
+   */
+  synchronized String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * Method to get the number of symbols in the dictionary, which is one more than the highest ID.
+   *
+   * @return number of symbols.
+   */
+  synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,438 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import model.enums.LotMatching;
+import model.enums.TransactionType;
+
+/**
+ * This class represents the tax lots of a portfolio. Every purchase opens a lot, and every sale is
+ * matched against the open lots of its company in date order under a lot matching policy, which
+ * realizes the gain or loss of the matched quantity. The realized gain, the open quantity and the
+ * cost of the open lots are recorded after every transaction, so the realized and unrealized gain
+ * of a portfolio as of any date is a binary search per company. Transactions appended to the
+ * portfolio later are matched in place, unless they are dated before a transaction already matched.
+ * Lots identified for sales are kept in a map owned by the caller, so they outlive the ledger and
+ * are used again when the portfolio is matched from scratch.
+ */
+class TaxLotLedger {
+  private final LotMatching matching;
+  private final Map<String, Lots> lots = new HashMap<>();
+  private final Map<String, Map<Integer, int[]>> identifications;
+  private HashMap<String, List<CompanyStock>> portfolio;
+
+  /**
+   * Constructs a TaxLotLedger object from the transactions of a portfolio, without any identified
+   * lots.
+   *
+   * @param portfolio transactions by company symbol.
+   * @param matching  policy used to match sales against open lots.
+   */
+  TaxLotLedger(HashMap<String, List<CompanyStock>> portfolio, LotMatching matching) {
+    this(portfolio, matching, new HashMap<>());
+  }
+
+  /**
+   * Constructs a TaxLotLedger object from the transactions of a portfolio.
+   *
+   * @param portfolio       transactions by company symbol.
+   * @param matching        policy used to match sales against open lots.
+   * @param identifications lots identified for sales, by company symbol and index of the sale.
+   *                        Lots identified later are added to it.
+   */
+  TaxLotLedger(HashMap<String, List<CompanyStock>> portfolio, LotMatching matching,
+               Map<String, Map<Integer, int[]>> identifications) {
+    this.portfolio = portfolio;
+    this.matching = matching;
+    this.identifications = identifications;
+    for (Map.Entry<String, List<CompanyStock>> entry : portfolio.entrySet()) {
+      Lots companyLots = newLots(entry.getKey());
+      companyLots.match(entry.getValue(), matching);
+    }
+  }
+
+  /**
+   * Method to check if the ledger was built from the given transactions.
+   *
+   * @param portfolio transactions by company symbol.
+   * @return true if the ledger is up to date with the transactions, else false.
+   */
+  boolean isOf(HashMap<String, List<CompanyStock>> portfolio) {
+    return this.portfolio == portfolio;
+  }
+
+  /**
+   * Method to move the ledger to a newer copy of its portfolio, in which transactions were only
+   * appended. Appended transactions dated on or after the last matched transaction of their company
+   * are matched in place, the company is matched again from its first transaction otherwise.
+   *
+   * @param newer transactions by company symbol, including the ones already in the ledger.
+   */
+  void update(HashMap<String, List<CompanyStock>> newer) {
+    for (Map.Entry<String, List<CompanyStock>> entry : newer.entrySet()) {
+      Lots companyLots = lots.get(entry.getKey());
+      if (companyLots == null) {
+        companyLots = newLots(entry.getKey());
+      }
+      companyLots.append(entry.getValue(), matching);
+    }
+    this.portfolio = newer;
+  }
+
+  /**
+   * Method to identify the lots a sale is matched against under specific identification. The
+   * identified lots are used in the given order, and any quantity left after them is matched first
+   * in, first out. A company whose sale was already matched is matched again.
+   *
+   * @param symbol company/Stock symbol.
+   * @param sale   index of the sale in the transactions of the company.
+   * @param lotIds IDs of the lots, that is the indices of their purchases.
+   */
+  void identify(String symbol, int sale, int... lotIds) {
+    Lots companyLots = lots.get(symbol);
+    List<CompanyStock> stocks = portfolio.get(symbol);
+    if (companyLots == null || stocks == null) {
+      return;
+    }
+    companyLots.identified.put(sale, lotIds.clone());
+    if (matching == LotMatching.SPECIFIC_ID) {
+      companyLots.match(stocks, matching);
+    }
+  }
+
+  /**
+   * Helper method to add the lots of a company, with the lots identified for its sales.
+   *
+   * @param symbol company/Stock symbol.
+   * @return empty lots of the company.
+   */
+  private Lots newLots(String symbol) {
+    Lots companyLots = new Lots(identifications.computeIfAbsent(symbol, k -> new HashMap<>()));
+    lots.put(symbol, companyLots);
+    return companyLots;
+  }
+
+  /**
+   * Method to get the lots of a company which are still open after every transaction.
+   *
+   * @param symbol company/Stock symbol.
+   * @return open lots in date order.
+   */
+  List<Lot> getOpenLots(String symbol) {
+    Lots companyLots = lots.get(symbol);
+    List<Lot> open = new ArrayList<>();
+    if (companyLots != null) {
+      for (Lot lot : companyLots.open) {
+        open.add(new Lot(lot.id, lot.day, lot.quantity, lot.unitCost));
+      }
+    }
+    return open;
+  }
+
+  /**
+   * Method to get the gain realized by the sales of a company up to the end of a day.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @return realized gain, negative for a loss.
+   */
+  double getRealizedGain(String symbol, int epochDay) {
+    Lots companyLots = lots.get(symbol);
+    if (companyLots == null) {
+      return 0;
+    }
+    int index = companyLots.indexOnOrBefore(epochDay);
+    return index < 0 ? 0 : companyLots.realized[index];
+  }
+
+  /**
+   * Method to get the gain realized by every sale of the portfolio up to the end of a day.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return realized gain, negative for a loss.
+   */
+  double getRealizedGain(int epochDay) {
+    double realized = 0;
+    for (String symbol : lots.keySet()) {
+      realized += getRealizedGain(symbol, epochDay);
+    }
+    return realized;
+  }
+
+  /**
+   * Method to get the quantity of a company in lots still open at the end of a day.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @return open quantity.
+   */
+  double getOpenQuantity(String symbol, int epochDay) {
+    Lots companyLots = lots.get(symbol);
+    if (companyLots == null) {
+      return 0;
+    }
+    int index = companyLots.indexOnOrBefore(epochDay);
+    return index < 0 ? 0 : companyLots.quantities[index];
+  }
+
+  /**
+   * Method to get the gain of the lots of a company still open at the end of a day, had they been
+   * sold at the given price.
+   *
+   * @param symbol   company/Stock symbol.
+   * @param epochDay number of days since 1970-01-01.
+   * @param price    unit price of the company on the day.
+   * @return unrealized gain, negative for a loss.
+   */
+  double getUnrealizedGain(String symbol, int epochDay, double price) {
+    Lots companyLots = lots.get(symbol);
+    if (companyLots == null) {
+      return 0;
+    }
+    int index = companyLots.indexOnOrBefore(epochDay);
+    return index < 0 ? 0 : companyLots.quantities[index] * price - companyLots.costs[index];
+  }
+
+  /**
+   * This class represents a lot, that is the quantity left of one purchase.
+   */
+  static final class Lot {
+    private final int id;
+    private final int day;
+    private double quantity;
+    private final double unitCost;
+
+    /**
+     * Constructs a Lot object.
+     *
+     * @param id       index of the purchase in the transactions of the company.
+     * @param day      number of days since 1970-01-01 of the purchase.
+     * @param quantity quantity left.
+     * @param unitCost cost of a unit, including its share of the commission fees.
+     */
+    private Lot(int id, int day, double quantity, double unitCost) {
+      this.id = id;
+      this.day = day;
+      this.quantity = quantity;
+      this.unitCost = unitCost;
+    }
+
+    int getId() {
+      return id;
+    }
+
+    int getDay() {
+      return day;
+    }
+
+    double getQuantity() {
+      return quantity;
+    }
+
+    double getUnitCost() {
+      return unitCost;
+    }
+  }
+
+  /**
+   * This class represents the open lots of a company with the totals recorded after each of its
+   * date sorted transactions.
+   */
+  private static final class Lots {
+    private final Deque<Lot> open = new ArrayDeque<>();
+    // lots identified for a sale, by index of the sale.
+    private final Map<Integer, int[]> identified;
+    private int size;
+    private int[] days = new int[1];
+    private double[] realized = new double[1];
+    private double[] quantities = new double[1];
+    private double[] costs = new double[1];
+
+    /**
+     * Constructs an empty Lots object.
+     *
+     * @param identified lots identified for a sale, by index of the sale.
+     */
+    private Lots(Map<Integer, int[]> identified) {
+      this.identified = identified;
+    }
+
+    /**
+     * Method to match every transaction of the company again, in date order. Transactions on the
+     * same day keep their order.
+     *
+     * @param stocks   transactions of the company.
+     * @param matching policy used to match sales against open lots.
+     */
+    void match(List<CompanyStock> stocks, LotMatching matching) {
+      open.clear();
+      size = 0;
+      TransactionTable.Rows rows = TransactionTable.rowsOf(stocks);
+      TransactionTable table = rows.getTable();
+      long[] order = new long[rows.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = (long) table.getDay(rows.getRow(i)) << 32 | i;
+      }
+      Arrays.sort(order);
+      for (long key : order) {
+        int i = (int) key;
+        int row = rows.getRow(i);
+        add(i, table.getDay(row), table.getType(row), table.getQuantity(row),
+                table.getValue(row), table.getFees(row), matching);
+      }
+    }
+
+    /**
+     * Method to match the transactions appended since the last match.
+     *
+     * @param stocks   transactions of the company, including the ones already matched.
+     * @param matching policy used to match sales against open lots.
+     */
+    void append(List<CompanyStock> stocks, LotMatching matching) {
+      for (int i = size; i < stocks.size(); i++) {
+        if (size > 0 && stocks.get(i).getEpochDay() < days[size - 1]) {
+          match(stocks, matching);
+          return;
+        }
+      }
+      for (int i = size; i < stocks.size(); i++) {
+        CompanyStock stock = stocks.get(i);
+        add(i, stock.getEpochDay(), stock.getType(), stock.getQuantity(),
+                stock.getBoughtValue(), stock.getCommissionFees(), matching);
+      }
+    }
+
+    /**
+     * Helper method to match one transaction dated on or after every matched transaction, and to
+     * record the totals after it.
+     *
+     * @param id       index of the transaction in the transactions of the company.
+     * @param day      number of days since 1970-01-01.
+     * @param type     transaction type.
+     * @param quantity quantity bought or sold.
+     * @param value    total bought or sold value.
+     * @param fees     commission fees.
+     * @param matching policy used to match sales against open lots.
+     */
+    private void add(int id, int day, TransactionType type, double quantity, double value,
+                     double fees, LotMatching matching) {
+      double totalRealized = size == 0 ? 0 : realized[size - 1];
+      double totalQuantity = size == 0 ? 0 : quantities[size - 1];
+      double totalCost = size == 0 ? 0 : costs[size - 1];
+
+      if (type == TransactionType.SELL) {
+        double matchedQuantity = 0;
+        double matchedCost = 0;
+        int[] lotIds = matching == LotMatching.SPECIFIC_ID ? identified.get(id) : null;
+        if (lotIds != null) {
+          for (int lotId : lotIds) {
+            Lot lot = find(lotId);
+            if (lot != null && matchedQuantity < quantity) {
+              double taken = Math.min(lot.quantity, quantity - matchedQuantity);
+              matchedCost += take(lot, taken);
+              matchedQuantity += taken;
+              if (lot.quantity <= 0) {
+                open.remove(lot);
+              }
+            }
+          }
+        }
+        boolean lastIn = matching == LotMatching.LIFO;
+        while (!open.isEmpty() && matchedQuantity < quantity) {
+          Lot lot = lastIn ? open.peekLast() : open.peekFirst();
+          double taken = Math.min(lot.quantity, quantity - matchedQuantity);
+          matchedCost += take(lot, taken);
+          matchedQuantity += taken;
+          if (lot.quantity <= 0) {
+            if (lastIn) {
+              open.pollLast();
+            } else {
+              open.pollFirst();
+            }
+          }
+        }
+        // a sale beyond the open quantity only realizes the proceeds of the matched part.
+        double proceeds = quantity == 0 ? 0 : (value - fees) * (matchedQuantity / quantity);
+        totalRealized += proceeds - matchedCost;
+        totalQuantity -= matchedQuantity;
+        totalCost -= matchedCost;
+      } else {
+        double unitCost = quantity == 0 ? 0 : (value + fees) / quantity;
+        open.addLast(new Lot(id, day, quantity, unitCost));
+        totalQuantity += quantity;
+        totalCost += value + fees;
+      }
+
+      if (size == days.length) {
+        int capacity = size * 2;
+        days = Arrays.copyOf(days, capacity);
+        realized = Arrays.copyOf(realized, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+      }
+      days[size] = day;
+      realized[size] = totalRealized;
+      // a lot sold off completely is held as 0, never as -0.
+      quantities[size] = open.isEmpty() ? 0 : totalQuantity;
+      costs[size] = open.isEmpty() ? 0 : totalCost;
+      size++;
+    }
+
+    /**
+     * Helper method to take a quantity out of an open lot. The caller closes the lot once it is
+     * empty, from the end of the open lots it was taken from.
+     *
+     * @param lot      open lot.
+     * @param quantity quantity to take, at most the quantity left in the lot.
+     * @return cost of the quantity taken.
+     */
+    private double take(Lot lot, double quantity) {
+      lot.quantity -= quantity;
+      return quantity * lot.unitCost;
+    }
+
+    /**
+     * Helper method to find an open lot by its ID.
+     *
+     * @param id index of the purchase in the transactions of the company.
+     * @return open lot, null if the lot is closed or does not exist.
+     */
+    private Lot find(int id) {
+      Iterator<Lot> lots = open.iterator();
+      while (lots.hasNext()) {
+        Lot lot = lots.next();
+        if (lot.id == id) {
+          return lot;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Helper method to find the last transaction on or before a day.
+     *
+     * @param epochDay number of days since 1970-01-01.
+     * @return index of the transaction, -1 if every transaction is after the day.
+     */
+    private int indexOnOrBefore(int epochDay) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (days[mid] <= epochDay) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
+  }
+}
@@ -0,0 +1,475 @@
+package model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * This class represents a streaming parser for AlphaVantage time series responses. It pulls
+ * characters from a reader through a fixed size buffer and writes the date and closing price of
+ * every data point straight into primitive arrays, without building a JSON object tree. Open, high,
+ * low and volume values are skipped unless they are asked for.
+ */
+class TimeSeriesParser {
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final Reader in;
+  private final boolean withOhlcv;
+  private final char[] buf = new char[8192];
+  private final StringBuilder token = new StringBuilder();
+  private int pos;
+  private int limit;
+
+  private int size;
+  private int[] days = new int[256];
+  private double[] opens;
+  private double[] highs;
+  private double[] lows;
+  private double[] closes = new double[256];
+  private long[] volumes;
+
+  /**
+   * Constructs a TimeSeriesParser object for the given response reader.
+   *
+   * @param in        reader of the response.
+   * @param withOhlcv true if open, high, low and volume values are also required.
+   */
+  private TimeSeriesParser(Reader in, boolean withOhlcv) {
+    this.in = in;
+    this.withOhlcv = withOhlcv;
+    if (withOhlcv) {
+      opens = new double[256];
+      highs = new double[256];
+      lows = new double[256];
+      volumes = new long[256];
+    }
+  }
+
+  /**
+   * Method to parse a time series response into a price series.
+   *
+   * @param in        reader of the response.
+   * @param withOhlcv true if open, high, low and volume values are also required.
+   * @return parsed price series, empty if the response has no time series object.
+   * @throws IOException if the reader fails or the response is not valid JSON.
+   */
+  static PriceSeries parse(Reader in, boolean withOhlcv) throws IOException {
+    return new TimeSeriesParser(in, withOhlcv).parseResponse();
+  }
+
+  /**
+   * Helper method to parse the top level response object.
+   *
+   * @return parsed price series.
+   * @throws IOException if the reader fails or the response is not valid JSON.
+   */
+  private PriceSeries parseResponse() throws IOException {
+    expect('{');
+    if (peek() == '}') {
+      return PriceSeries.EMPTY;
+    }
+    do {
+      readString();
+      expect(':');
+      if (token.indexOf("Time Series") >= 0) {
+        parseSeries();
+      } else {
+        skipValue();
+      }
+    } while (nextMember('}'));
+    return toSeries();
+  }
+
+  /**
+   * Helper method to parse the date to price data object.
+   *
+   * @throws IOException if the reader fails or the response is not valid JSON.
+   */
+  private void parseSeries() throws IOException {
+    expect('{');
+    if (peek() == '}') {
+      pos++;
+      return;
+    }
+    do {
+      readString();
+      ensureCapacity();
+      days[size] = parseEpochDay();
+      expect(':');
+      parseBar();
+      size++;
+    } while (nextMember('}'));
+  }
+
+  /**
+   * Helper method to parse the values of a single data point.
+   *
+   * @throws IOException if the reader fails or the response is not valid JSON.
+   */
+  private void parseBar() throws IOException {
+    expect('{');
+    if (peek() == '}') {
+      pos++;
+      return;
+    }
+    do {
+      readString();
+      expect(':');
+      char field = token.length() > 3 ? token.charAt(3) : ' ';
+      if (field == 'c') {
+        readString();
+        closes[size] = parseNumber();
+      } else if (withOhlcv && (field == 'o' || field == 'h' || field == 'l' || field == 'v')) {
+        readString();
+        double value = parseNumber();
+        if (field == 'o') {
+          opens[size] = value;
+        } else if (field == 'h') {
+          highs[size] = value;
+        } else if (field == 'l') {
+          lows[size] = value;
+        } else {
+          volumes[size] = (long) value;
+        }
+      } else {
+        skipValue();
+      }
+    } while (nextMember('}'));
+  }
+
+  /**
+   * Helper method to convert the parsed arrays into an ascending price series. AlphaVantage lists
+   * the latest date first, so the arrays are usually reversed in place.
+   *
+   * @return price series.
+   */
+  private PriceSeries toSeries() {
+    if (size == 0) {
+      return PriceSeries.EMPTY;
+    }
+    boolean ascending = true;
+    boolean descending = true;
+    for (int i = 1; i < size; i++) {
+      ascending &= days[i - 1] < days[i];
+      descending &= days[i - 1] > days[i];
+    }
+    if (!ascending && !descending) {
+      sortByDay();
+    } else if (descending) {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        swap(i, j);
+      }
+    }
+    if (withOhlcv) {
+      return new PriceSeries(trim(days), trim(opens), trim(highs), trim(lows), trim(closes),
+              trim(volumes));
+    }
+    return new PriceSeries(trim(days), trim(closes));
+  }
+
+  /**
+   * Helper method to sort the parsed arrays by date, used when a response is not ordered.
+   */
+  private void sortByDay() {
+    for (int i = 1; i < size; i++) {
+      for (int j = i; j > 0 && days[j - 1] > days[j]; j--) {
+        swap(j - 1, j);
+      }
+    }
+  }
+
+  /**
+   * Helper method to swap two data points in all the parsed arrays.
+   *
+   * @param i index of first data point.
+   * @param j index of second data point.
+   */
+  private void swap(int i, int j) {
+    int day = days[i];
+    days[i] = days[j];
+    days[j] = day;
+    double close = closes[i];
+    closes[i] = closes[j];
+    closes[j] = close;
+    if (withOhlcv) {
+      double value = opens[i];
+      opens[i] = opens[j];
+      opens[j] = value;
+      value = highs[i];
+      highs[i] = highs[j];
+      highs[j] = value;
+      value = lows[i];
+      lows[i] = lows[j];
+      lows[j] = value;
+      long volume = volumes[i];
+      volumes[i] = volumes[j];
+      volumes[j] = volume;
+    }
+  }
+
+  /**
+   * Helper method to grow the parsed arrays when they are full.
+   */
+  private void ensureCapacity() {
+    if (size < days.length) {
+      return;
+    }
+    int capacity = days.length * 2;
+    days = Arrays.copyOf(days, capacity);
+    closes = Arrays.copyOf(closes, capacity);
+    if (withOhlcv) {
+      opens = Arrays.copyOf(opens, capacity);
+      highs = Arrays.copyOf(highs, capacity);
+      lows = Arrays.copyOf(lows, capacity);
+      volumes = Arrays.copyOf(volumes, capacity);
+    }
+  }
+
+  private int[] trim(int[] values) {
+    return values.length == size ? values : Arrays.copyOf(values, size);
+  }
+
+  private double[] trim(double[] values) {
+    return values.length == size ? values : Arrays.copyOf(values, size);
+  }
+
+  private long[] trim(long[] values) {
+    return values.length == size ? values : Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Helper method to convert the yyyy-MM-dd date in the token to an epoch day.
+   *
+   * @return epoch day.
+   * @throws IOException if the token is not a date.
+   */
+  private int parseEpochDay() throws IOException {
+    if (token.length() < 10) {
+      throw new IOException("Invalid date in time series: " + token);
+    }
+    return EpochDay.of(digits(0, 4), digits(5, 7), digits(8, 10));
+  }
+
+  /**
+   * Helper method to read an unsigned integer from a part of the token.
+   *
+   * @param from first index.
+   * @param to   index after the last digit.
+   * @return integer value.
+   * @throws IOException if a character is not a digit.
+   */
+  private int digits(int from, int to) throws IOException {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      char c = token.charAt(i);
+      if (c < '0' || c > '9') {
+        throw new IOException("Invalid date in time series: " + token);
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Helper method to convert the decimal number in the token to a double. Plain decimals with up
+   * to 15 significant digits are converted exactly without creating a string, anything else falls
+   * back to Double.parseDouble.
+   *
+   * @return number value.
+   * @throws IOException if the token is not a number.
+   */
+  private double parseNumber() throws IOException {
+    long mantissa = 0;
+    int digitCount = 0;
+    boolean hasDigit = false;
+    int scale = -1;
+    int length = token.length();
+    boolean negative = length > 0 && token.charAt(0) == '-';
+    for (int i = negative ? 1 : 0; i < length; i++) {
+      char c = token.charAt(i);
+      if (c >= '0' && c <= '9') {
+        hasDigit = true;
+        mantissa = mantissa * 10 + (c - '0');
+        if (mantissa != 0) {
+          digitCount++;
+        }
+        if (scale >= 0) {
+          scale++;
+        }
+      } else if (c == '.' && scale < 0) {
+        scale = 0;
+      } else {
+        return parseDouble();
+      }
+    }
+    // an empty token, a lone sign or a lone point is not a number.
+    if (!hasDigit) {
+      throw new IOException("Invalid number in time series: " + token);
+    }
+    if (digitCount > 15 || scale >= POWERS_OF_TEN.length) {
+      return parseDouble();
+    }
+    double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+    return negative ? -value : value;
+  }
+
+  /**
+   * Helper method to convert the token to a double with Double.parseDouble.
+   *
+   * @return number value.
+   * @throws IOException if the token is not a number.
+   */
+  private double parseDouble() throws IOException {
+    try {
+      return Double.parseDouble(token.toString());
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid number in time series: " + token, e);
+    }
+  }
+
+  /**
+   * Helper method to read the next non whitespace character without consuming it.
+   *
+   * @return next character, or -1 at the end of the response.
+   * @throws IOException if the reader fails.
+   */
+  private int peek() throws IOException {
+    while (true) {
+      if (pos == limit) {
+        limit = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (limit <= 0) {
+          limit = 0;
+          return -1;
+        }
+      }
+      char c = buf[pos];
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c;
+      }
+      pos++;
+    }
+  }
+
+  /**
+   * Helper method to read the next character, whitespace included.
+   *
+   * @return next character.
+   * @throws IOException if the reader fails or the response ends.
+   */
+  private char next() throws IOException {
+    if (pos == limit) {
+      limit = in.read(buf, 0, buf.length);
+      pos = 0;
+      if (limit <= 0) {
+        limit = 0;
+        throw new IOException("Unexpected end of time series response.");
+      }
+    }
+    return buf[pos++];
+  }
+
+  /**
+   * Helper method to consume the expected character.
+   *
+   * @param expected expected character.
+   * @throws IOException if the next character is different.
+   */
+  private void expect(char expected) throws IOException {
+    if (peek() != expected) {
+      throw new IOException("Expected '" + expected + "' in time series response.");
+    }
+    pos++;
+  }
+
+  /**
+   * Helper method to check if another member follows in an object or array.
+   *
+   * @param close closing character of the object or array.
+   * @return true if a comma was consumed, false if the closing character was consumed.
+   * @throws IOException if neither of them follows.
+   */
+  private boolean nextMember(char close) throws IOException {
+    int c = peek();
+    pos++;
+    if (c == ',') {
+      return true;
+    } else if (c == close) {
+      return false;
+    }
+    throw new IOException("Expected ',' or '" + close + "' in time series response.");
+  }
+
+  /**
+   * Helper method to read a string into the token.
+   *
+   * @throws IOException if the next value is not a string.
+   */
+  private void readString() throws IOException {
+    expect('"');
+    token.setLength(0);
+    char c;
+    while ((c = next()) != '"') {
+      if (c == '\\') {
+        c = next();
+        if (c == 'u') {
+          c = readUnicodeEscape();
+        }
+      }
+      token.append(c);
+    }
+  }
+
+  /**
+   * Helper method to read the four hex digits of a unicode escape.
+   *
+   * @return escaped character.
+   * @throws IOException if a digit is not a hex digit or the response ends.
+   */
+  private char readUnicodeEscape() throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      char c = next();
+      int digit = Character.digit(c, 16);
+      if (digit < 0) {
+        throw new IOException("Invalid unicode escape in time series: " + c);
+      }
+      value = value << 4 | digit;
+    }
+    return (char) value;
+  }
+
+  /**
+   * Helper method to skip over any JSON value.
+   *
+   * @throws IOException if the value is not valid JSON.
+   */
+  private void skipValue() throws IOException {
+    int c = peek();
+    if (c == '"') {
+      readString();
+    } else if (c == '{' || c == '[') {
+      char close = c == '{' ? '}' : ']';
+      pos++;
+      if (peek() == close) {
+        pos++;
+        return;
+      }
+      do {
+        if (close == '}') {
+          readString();
+          expect(':');
+        }
+        skipValue();
+      } while (nextMember(close));
+    } else {
+      while (c != ',' && c != '}' && c != ']' && c != -1) {
+        pos++;
+        c = peek();
+      }
+    }
+  }
+}
@@ -0,0 +1,468 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import model.enums.TransactionType;
+
+/**
+ * This class represents the transactions of a portfolio stored column by column. Each transaction
+ * is a row index into parallel primitive arrays of dates, symbol IDs, quantities, prices, values,
+ * fees and types, so a portfolio of many thousand transactions is a handful of arrays instead of
+ * one object with seven boxed fields per transaction, and aggregations over a portfolio walk those
+ * arrays in order. Existing callers see the rows of each company as a List of CompanyStock views.
+ */
+class TransactionTable {
+  private static final TransactionType[] TYPES = TransactionType.values();
+
+  private int size;
+  private int[] days;
+  private int[] symbolIds;
+  private double[] quantities;
+  private double[] prices;
+  private double[] values;
+  private double[] fees;
+  private byte[] types;
+  // rows whose date string is not the formatted epoch day, such as invalid dates.
+  private final Map<Integer, String> dates = new HashMap<>();
+  // rows whose company name is not the name in the symbol dictionary.
+  private final Map<Integer, String> names = new HashMap<>();
+
+  /**
+   * Constructs an empty TransactionTable object.
+   */
+  TransactionTable() {
+    this(16);
+  }
+
+  /**
+   * Constructs an empty TransactionTable object with room for the given number of transactions.
+   *
+   * @param capacity initial number of rows.
+   */
+  TransactionTable(int capacity) {
+    capacity = Math.max(capacity, 1);
+    days = new int[capacity];
+    symbolIds = new int[capacity];
+    quantities = new double[capacity];
+    prices = new double[capacity];
+    values = new double[capacity];
+    fees = new double[capacity];
+    types = new byte[capacity];
+  }
+
+  /**
+   * Method to add a transaction to the table.
+   *
+   * @param stock transaction.
+   * @return row index of the transaction.
+   */
+  int add(CompanyStock stock) {
+    return add(stock.getDate(), stock.getCompanyName(), stock.getCompanySymbol(),
+            stock.getQuantity(), stock.getBoughtPrice(), stock.getBoughtValue(), stock.getType(),
+            stock.getCommissionFees());
+  }
+
+  /**
+   * Method to add a transaction to the table.
+   *
+   * @param date           date of the transaction.
+   * @param companyName    Name of the company.
+   * @param companySymbol  Stock symbol.
+   * @param quantity       Quantity purchased.
+   * @param boughtPrice    Stock unit price.
+   * @param boughtValue    Total bought value.
+   * @param type           transaction type.
+   * @param commissionFees commission fees.
+   * @return row index of the transaction.
+   */
+  int add(String date, String companyName, String companySymbol, double quantity,
+          double boughtPrice, double boughtValue, TransactionType type, double commissionFees) {
+    if (size == days.length) {
+      int capacity = size * 2;
+      days = Arrays.copyOf(days, capacity);
+      symbolIds = Arrays.copyOf(symbolIds, capacity);
+      quantities = Arrays.copyOf(quantities, capacity);
+      prices = Arrays.copyOf(prices, capacity);
+      values = Arrays.copyOf(values, capacity);
+      fees = Arrays.copyOf(fees, capacity);
+      types = Arrays.copyOf(types, capacity);
+    }
+    int row = size++;
+    days[row] = EpochDay.parseOrNone(date);
+    symbolIds[row] = Cache.symbols.add(companySymbol, companyName);
+    quantities[row] = quantity;
+    prices[row] = boughtPrice;
+    values[row] = boughtValue;
+    fees[row] = commissionFees;
+    types[row] = (byte) type.ordinal();
+    if (date == null || !date.equals(EpochDay.format(days[row]))) {
+      dates.put(row, date);
+    }
+    if (companyName == null || !companyName.equals(Cache.symbols.getName(symbolIds[row]))) {
+      names.put(row, companyName);
+    }
+    return row;
+  }
+
+  /**
+   * Method to get the number of transactions in the table.
+   *
+   * @return number of rows.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Method to get the date of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return number of days since 1970-01-01, EpochDay.NONE if the date is not valid.
+   */
+  int getDay(int row) {
+    return days[row];
+  }
+
+  /**
+   * Method to get the symbol ID of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return ID of the symbol in the symbol dictionary.
+   */
+  int getSymbolId(int row) {
+    return symbolIds[row];
+  }
+
+  /**
+   * Method to get the quantity of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return quantity.
+   */
+  double getQuantity(int row) {
+    return quantities[row];
+  }
+
+  /**
+   * Method to get the unit price of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return unit price.
+   */
+  double getPrice(int row) {
+    return prices[row];
+  }
+
+  /**
+   * Method to get the total bought value of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return total bought value.
+   */
+  double getValue(int row) {
+    return values[row];
+  }
+
+  /**
+   * Method to get the commission fees of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return commission fees.
+   */
+  double getFees(int row) {
+    return fees[row];
+  }
+
+  /**
+   * Method to get the type of a transaction.
+   *
+   * @param row row index of the transaction.
+   * @return transaction type.
+   */
+  TransactionType getType(int row) {
+    return TYPES[types[row]];
+  }
+
+  /**
+   * Method to get the date string of a transaction as it was added.
+   *
+   * @param row row index of the transaction.
+   * @return date string.
+   */
+  String getDate(int row) {
+    return dates.containsKey(row) ? dates.get(row) : EpochDay.format(days[row]);
+  }
+
+  /**
+   * Method to get the company name of a transaction as it was added.
+   *
+   * @param row row index of the transaction.
+   * @return company name.
+   */
+  String getName(int row) {
+    return names.containsKey(row) ? names.get(row) : Cache.symbols.getName(symbolIds[row]);
+  }
+
+  /**
+   * Method to group the transactions by company, in the layout used by the portfolio cache. The
+   * lists are read-only views of this table.
+   *
+   * @return transactions by company symbol.
+   */
+  HashMap<String, List<CompanyStock>> toPortfolio() {
+    int[] counts = new int[Cache.symbols.size()];
+    for (int row = 0; row < size; row++) {
+      counts[symbolIds[row]]++;
+    }
+    int[][] rowsById = new int[counts.length][];
+    int[] filled = new int[counts.length];
+    for (int row = 0; row < size; row++) {
+      int id = symbolIds[row];
+      if (rowsById[id] == null) {
+        rowsById[id] = new int[counts[id]];
+      }
+      rowsById[id][filled[id]++] = row;
+    }
+    HashMap<String, List<CompanyStock>> portfolio = new HashMap<>();
+    for (int id = 0; id < rowsById.length; id++) {
+      if (rowsById[id] != null) {
+        portfolio.put(Cache.symbols.getSymbol(id),
+                new Rows(this, rowsById[id], rowsById[id].length));
+      }
+    }
+    return portfolio;
+  }
+
+  /**
+   * Method to append the transactions of another table to a portfolio. The portfolio itself is
+   * left as it is: the appended transactions are added to the tables behind its lists, and the
+   * returned portfolio holds views extended by them, so appending costs the appended transactions
+   * only and not the whole portfolio.
+   *
+   * @param portfolio transactions by company symbol.
+   * @param appended  transactions to append, in order.
+   * @return transactions by company symbol, including the appended ones.
+   */
+  static HashMap<String, List<CompanyStock>> append(HashMap<String, List<CompanyStock>> portfolio,
+                                                    TransactionTable appended) {
+    HashMap<String, List<CompanyStock>> newer = new HashMap<>(portfolio);
+    TransactionTable table = null;
+    for (List<CompanyStock> stocks : portfolio.values()) {
+      if (stocks instanceof Rows) {
+        table = ((Rows) stocks).table;
+        break;
+      }
+    }
+    if (table == null) {
+      table = new TransactionTable(appended.size);
+    }
+    for (int row = 0; row < appended.size; row++) {
+      String symbol = Cache.symbols.getSymbol(appended.symbolIds[row]);
+      Rows rows = newer.containsKey(symbol) ? rowsOf(newer.get(symbol))
+              : new Rows(table, new int[0], 0);
+      int added = rows.table.add(appended.getDate(row), appended.getName(row), symbol,
+              appended.quantities[row], appended.prices[row], appended.values[row],
+              appended.getType(row), appended.fees[row]);
+      newer.put(symbol, rows.append(added));
+    }
+    return newer;
+  }
+
+  /**
+   * Method to get the rows behind a list of transactions. A list which is a view of a table gives
+   * its rows directly, any other list is copied into a new table first.
+   *
+   * @param stocks list of transactions.
+   * @return rows of the transactions, in list order.
+   */
+  static Rows rowsOf(List<CompanyStock> stocks) {
+    if (stocks instanceof Rows) {
+      return (Rows) stocks;
+    }
+    TransactionTable table = new TransactionTable(stocks.size());
+    int[] rows = new int[stocks.size()];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = table.add(stocks.get(i));
+    }
+    return new Rows(table, rows, rows.length);
+  }
+
+  /**
+   * This class represents a read-only list view of some rows of a transaction table. A view can
+   * be extended into a new view with one more row; the new view reuses the spare room of the row
+   * array of the view it extends, if no other view did so before.
+   */
+  static final class Rows extends AbstractList<CompanyStock> {
+    private final TransactionTable table;
+    private final int[] rows;
+    private final int size;
+    // true once a view extending this one took the room after its last row.
+    private boolean extended;
+
+    /**
+     * Constructs a Rows object.
+     *
+     * @param table transaction table.
+     * @param rows  row indices of the transactions in the view, followed by spare room.
+     * @param size  number of transactions in the view.
+     */
+    private Rows(TransactionTable table, int[] rows, int size) {
+      this.table = table;
+      this.rows = rows;
+      this.size = size;
+    }
+
+    /**
+     * Method to get the table of the view.
+     *
+     * @return transaction table.
+     */
+    TransactionTable getTable() {
+      return table;
+    }
+
+    /**
+     * Method to get the table row of a transaction in the view.
+     *
+     * @param index index of the transaction in the view.
+     * @return row index in the table.
+     */
+    int getRow(int index) {
+      return rows[index];
+    }
+
+    /**
+     * Method to get the transactions of the view dated on or before a day.
+     *
+     * @param epochDay number of days since 1970-01-01.
+     * @return rows on or before the day, in view order.
+     */
+    Rows until(int epochDay) {
+      int[] kept = new int[size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (table.days[rows[i]] <= epochDay) {
+          kept[count++] = rows[i];
+        }
+      }
+      return count == size ? this : new Rows(table, kept, count);
+    }
+
+    /**
+     * Method to get a view of this view followed by one more row of its table. This view is left
+     * as it is.
+     *
+     * @param row row index of the transaction to add.
+     * @return extended view.
+     */
+    synchronized Rows append(int row) {
+      int[] grown = rows;
+      if (extended || size == rows.length) {
+        grown = Arrays.copyOf(rows, Math.max(4, size * 2));
+      } else {
+        extended = true;
+      }
+      grown[size] = row;
+      return new Rows(table, grown, size + 1);
+    }
+
+    @Override
+    public CompanyStock get(int index) {
+      return table.new Row(rows[Objects.checkIndex(index, size)]);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * This class represents a read-only CompanyStock view of one row of the table.
+   */
+  private final class Row implements CompanyStock {
+    private final int row;
+
+    /**
+     * Constructs a Row object.
+     *
+     * @param row row index of the transaction.
+     */
+    private Row(int row) {
+      this.row = row;
+    }
+
+    @Override
+    public String getCompanyName() {
+      return getName(row);
+    }
+
+    @Override
+    public String getCompanySymbol() {
+      return Cache.symbols.getSymbol(symbolIds[row]);
+    }
+
+    @Override
+    public int getSymbolId() {
+      return symbolIds[row];
+    }
+
+    @Override
+    public Double getQuantity() {
+      return quantities[row];
+    }
+
+    @Override
+    public Double getBoughtPrice() {
+      return prices[row];
+    }
+
+    @Override
+    public Double getBoughtValue() {
+      return values[row];
+    }
+
+    /**
+     * Rows are shared by every view of the table, so a transaction is never changed in place.
+     *
+     * @param price bought price.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void setBoughtPrice(double price) {
+      throw new UnsupportedOperationException("Transactions are read-only.");
+    }
+
+    @Override
+    public Double getCommissionFees() {
+      return fees[row];
+    }
+
+    @Override
+    public String getDate() {
+      return TransactionTable.this.getDate(row);
+    }
+
+    @Override
+    public int getEpochDay() {
+      return days[row];
+    }
+
+    @Override
+    public TransactionType getType() {
+      return TransactionTable.this.getType(row);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s,%s,%s,%.2f,%.2f,%.2f,%.2f,%s", getDate(), getCompanyName(),
+              getCompanySymbol(), quantities[row], prices[row], values[row], fees[row],
+              getType());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package model.dto;
+
+import java.util.LinkedHashMap;
+
+/**
+ * This is a wrapper class used to combine the values of several portfolios on a date. This class
+ * has placeholder to store the value of each portfolio by portfolio name and their combined value.
+ * This class is used in household valuation implementation.
+ */
+public class HouseholdValueDTO {
+
+  LinkedHashMap<String, Double> portfolioValues;
+  double totalValue;
+
+  /**
+   * This is a constructor method for HouseholdValueDTO.
+   *
+   * @param portfolioValues value of each portfolio by portfolio name
+   * @param totalValue      combined value of the portfolios
+   */
+  public HouseholdValueDTO(LinkedHashMap<String, Double> portfolioValues, double totalValue) {
+    this.portfolioValues = portfolioValues;
+    this.totalValue = totalValue;
+  }
+
+  public LinkedHashMap<String, Double> getPortfolioValues() {
+    return portfolioValues;
+  }
+
+  public double getTotalValue() {
+    return totalValue;
+  }
+
+}
@@ -0,0 +1,31 @@
+package model.enums;
+
+/**
+ * This enum represents possible priorities of a price data fetch, from the most to the least
+ * urgent.
+ */
+public enum FetchPriority {
+  INTERACTIVE("Interactive"),
+  BULK("Bulk"),
+  PREFETCH("Prefetch");
+
+  private final String value;
+
+  /**
+   * Initializes enum values to a string.
+   *
+   * @param value string value.
+   */
+  FetchPriority(String value) {
+    this.value = value;
+  }
+
+  /**
+   * Method for getting enum attribute string value.
+   *
+   * @return enum string value.
+   */
+  public String getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,30 @@
+package model.enums;
+
+/**
+ * This enum represents possible ways of matching a sale against the open lots of a company.
+ */
+public enum LotMatching {
+  FIFO("First in, first out"),
+  LIFO("Last in, first out"),
+  SPECIFIC_ID("Specific identification");
+
+  private final String value;
+
+  /**
+   * Initializes enum values to a string.
+   *
+   * @param value string value.
+   */
+  LotMatching(String value) {
+    this.value = value;
+  }
+
+  /**
+   * Method for getting enum attribute string value.
+   *
+   * @return enum string value.
+   */
+  public String getValue() {
+    return value;
+  }
+}
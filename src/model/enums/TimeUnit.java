@@ -6,6 +6,7 @@ package model.enums;
 public enum TimeUnit {
   Yearly("Yearly"),
   Monthly("Monthly"),
+  Weekly("Weekly"),
   Daily("Daily");
 
 
@@ -209,7 +209,7 @@ public class InvestmentStrategyImpl extends AbstractPortfolioHelper implements I
     pane.add(getHeading(invalidDateRangeMessage.getText()));
 
     if (Objects.equals(portfolioName, "")) {
-      pane.add(new JLabel("Enter frequency for this strategy(Yearly/Monthly/Daily):"));
+      pane.add(new JLabel("Enter frequency for this strategy(Yearly/Monthly/Weekly/Daily):"));
       pane.add(freq);
       pane.add(getHeading(invalidFreqMessage.getText()));
 
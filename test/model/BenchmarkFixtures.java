@@ -0,0 +1,191 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import model.enums.TimeUnit;
+
+/**
+ * This class represents the price fixtures the benchmarks run on. The benchmarks take an optional
+ * fixtures directory and symbols as arguments:
+ * <ul>
+ *   <li>a directory with recorded daily responses is replayed as is;</li>
+ *   <li>symbols missing from the directory are first recorded from the live AlphaVantage API
+ *   through RecordingAPIRequests;</li>
+ *   <li>without any argument, AlphaVantage shaped daily responses are generated, recorded into a
+ *   temporary directory and replayed, so that the benchmarks also run offline.</li>
+ * </ul>
+ * Every response is served by ReplayAPIRequests, so the benchmarks measure the same bytes on every
+ * run.
+ */
+final class BenchmarkFixtures {
+  static final String[] GENERATED_SYMBOLS = {"GENA", "GENB", "GENC", "GEND", "GENE", "GENF"};
+  static final int GENERATED_BARS = 5500;
+
+  private final Path fixturesDir;
+  private final List<String> symbols;
+  private final boolean generated;
+
+  /**
+   * Constructs a BenchmarkFixtures object.
+   *
+   * @param fixturesDir directory of the recorded responses.
+   * @param symbols     symbols with a recorded daily response.
+   * @param generated   true if the responses were generated, else false.
+   */
+  private BenchmarkFixtures(Path fixturesDir, List<String> symbols, boolean generated) {
+    this.fixturesDir = fixturesDir;
+    this.symbols = symbols;
+    this.generated = generated;
+  }
+
+  /**
+   * Method to get the fixtures given on the command line of a benchmark.
+   *
+   * @param args fixtures directory, followed by symbols to record from the live API if missing.
+   * @return fixtures of the benchmark.
+   * @throws IOException if the fixtures directory could not be read or created.
+   */
+  static BenchmarkFixtures of(String[] args) throws IOException {
+    if (args.length == 0) {
+      Path dir = Files.createTempDirectory("benchmarkFixtures");
+      APIRequests recorder = new RecordingAPIRequests(
+          (scale, symbol) -> generateDaily(symbol, GENERATED_BARS), dir.toString());
+      for (String symbol : GENERATED_SYMBOLS) {
+        recorder.getTimeSeriesData(TimeUnit.Daily, symbol);
+      }
+      return new BenchmarkFixtures(dir, listSymbols(dir), true);
+    }
+
+    Path dir = Paths.get(args[0]);
+    Files.createDirectories(dir);
+    APIRequests recorder = new RecordingAPIRequests(new APIRequestsImpl(), dir.toString());
+    for (int i = 1; i < args.length; i++) {
+      if (!Files.exists(dir.resolve(CachedAPIRequests.getFileName(TimeUnit.Daily, args[i])))) {
+        recorder.getTimeSeriesData(TimeUnit.Daily, args[i]);
+      }
+    }
+    return new BenchmarkFixtures(dir, listSymbols(dir), false);
+  }
+
+  /**
+   * Method to replay the full daily response of every fixture symbol.
+   *
+   * @return response by symbol, without the symbols whose response has no price data.
+   */
+  Map<String, String> replayDaily() {
+    APIRequests replay = new ReplayAPIRequests(fixturesDir.toString());
+    Map<String, String> responses = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      String data = replay.getTimeSeriesData(TimeUnit.Daily, symbol);
+      if (CachedAPIRequests.hasTimeSeries(data)) {
+        responses.put(symbol, data);
+      }
+    }
+    return responses;
+  }
+
+  /**
+   * Method to describe the fixtures in the output of a benchmark.
+   *
+   * @return description of the fixtures.
+   */
+  String describe() {
+    return String.format("%s fixtures in %s: %s", generated ? "generated" : "recorded",
+        fixturesDir, symbols);
+  }
+
+  /**
+   * Method to generate an AlphaVantage daily response of a two-decimal random walk, latest bar
+   * first. The same symbol always gives the same response.
+   *
+   * @param symbol company/Stock symbol.
+   * @param bars   number of trading days.
+   * @return response string.
+   */
+  static String generateDaily(String symbol, int bars) {
+    Random random = new Random(symbol.hashCode());
+    StringBuilder data = new StringBuilder("{\"Meta Data\": {\"2. Symbol\": \"")
+        .append(symbol).append("\"}, \"Time Series (Daily)\": {");
+    double price = 20 + random.nextInt(200);
+    LocalDate day = LocalDate.of(2023, 12, 29);
+    for (int bar = 0; bar < bars; day = day.minusDays(1)) {
+      if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+        continue;
+      }
+      double open = round(price);
+      price = Math.max(1, price * (1 + random.nextGaussian() * 0.015));
+      double close = round(price);
+      double high = round(Math.max(open, close) * (1 + random.nextDouble() * 0.01));
+      double low = round(Math.min(open, close) * (1 - random.nextDouble() * 0.01));
+      data.append(bar == 0 ? "" : ", ").append(String.format(Locale.ROOT,
+          "\"%s\": {\"1. open\": \"%.4f\", \"2. high\": \"%.4f\", \"3. low\": \"%.4f\", "
+              + "\"4. close\": \"%.4f\", \"5. volume\": \"%d\"}",
+          day, open, high, low, close, 1_000_000 + random.nextInt(40_000_000)));
+      bar++;
+    }
+    return data.append("}}").toString();
+  }
+
+  /**
+   * Method to time an action, after running it as many times untimed to warm it up.
+   *
+   * @param iterations number of timed runs.
+   * @param action     action to time.
+   * @return average nanoseconds per run.
+   */
+  static double time(int iterations, Runnable action) {
+    for (int i = 0; i < iterations; i++) {
+      action.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      action.run();
+    }
+    return (System.nanoTime() - start) / (double) iterations;
+  }
+
+  /**
+   * Helper method to round a price to cents.
+   *
+   * @param price price.
+   * @return price rounded to two decimals.
+   */
+  private static double round(double price) {
+    return Math.round(price * 100) / 100.0;
+  }
+
+  /**
+   * Helper method to list the symbols with a recorded daily response.
+   *
+   * @param dir fixtures directory.
+   * @return symbols in name order.
+   * @throws IOException if the directory could not be read.
+   */
+  private static List<String> listSymbols(Path dir) throws IOException {
+    String suffix = CachedAPIRequests.getFileName(TimeUnit.Daily, "");
+    List<String> symbols = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + suffix)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(RecordingAPIRequests.RECENT)) {
+          symbols.add(name.substring(0, name.length() - suffix.length()));
+        }
+      }
+    }
+    Collections.sort(symbols);
+    return symbols;
+  }
+}
@@ -3,22 +3,32 @@ package model;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import org.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 
+import model.dto.HouseholdValueDTO;
 import model.dto.Pair;
 import model.dto.PortfolioPerformanceDTO;
+import model.enums.FetchPriority;
+import model.enums.LotMatching;
 import model.enums.PortfolioType;
 import model.enums.TimeUnit;
 import model.enums.TransactionType;
@@ -45,10 +55,24 @@ public class ModelComponentImplTest {
     return "Portfolio_" + date + "_" + pType.getValue();
   }
 
+  /**
+   * Creates the price source of the model. When the priceFixtures system property points to a
+   * directory of recorded responses, prices are replayed from it, optionally delayed by
+   * priceFixtureLatencyMillis, so the tests run without network access.
+   */
+  private APIRequests createApi() {
+    String fixtures = System.getProperty("priceFixtures");
+    if (fixtures == null || fixtures.isEmpty()) {
+      return new APIRequestsImpl();
+    }
+    return new ReplayAPIRequests(fixtures,
+        Long.parseLong(System.getProperty("priceFixtureLatencyMillis", "0")), 0, 0, 0);
+  }
+
   @Before
   public void setup() {
     modelComponent = new ModelComponentImpl(System.out, new PortfolioRepositoryImpl(),
-        new APIRequestsImpl());
+        createApi());
   }
 
   @Test
@@ -563,6 +587,48 @@ public class ModelComponentImplTest {
   }
 
 
+  @Test
+  public void testWeeklyStrategyIsSaved() throws IOException {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    List<CompanyStock> saved = new ArrayList<>();
+    ModelComponent model = new ModelComponentImpl(new StringBuilder(),
+        new PortfolioRepositoryImpl() {
+          @Override
+          public String saveCompanyStock(String fileType, List<CompanyStock> stocks) {
+            saved.addAll(stocks);
+            return "Weekly_Strategy";
+          }
+        }, (scale, symbol) -> "{\"Time Series (Daily)\": {"
+            + "\"2022-10-21\": {\"4. close\": \"25\"},"
+            + "\"2022-10-17\": {\"4. close\": \"24\"},"
+            + "\"2022-10-14\": {\"4. close\": \"20\"},"
+            + "\"2022-10-12\": {\"4. close\": \"21\"},"
+            + "\"2022-10-07\": {\"4. close\": \"10\"},"
+            + "\"2022-10-03\": {\"4. close\": \"11\"}}}");
+    Map<String, Object> dollarData = new HashMap<>();
+    dollarData.put("amount", "100");
+    dollarData.put("companySymbol", "WKLY");
+    dollarData.put("weights", "100");
+    dollarData.put("commissionFee", "1");
+    dollarData.put("dateRange", "2022-10-03#2022-10-21");
+    dollarData.put("fileType", "Flexible");
+    dollarData.put("StrategyFrequency", "Weekly");
+    dollarData.put("portfolioName", "");
+    Cache.companyList.put("WKLY", "Weekly Inc");
+    try {
+      assertEquals(new HashMap<>(), model.applyStrategy(dollarData));
+    } finally {
+      Cache.companyList.remove("WKLY");
+    }
+    List<String> dates = new ArrayList<>();
+    for (CompanyStock stock : saved) {
+      dates.add(stock.getDate());
+    }
+    Collections.sort(dates);
+    assertEquals(List.of("2022-10-07", "2022-10-14", "2022-10-21"), dates);
+  }
+
   @Test
   public void testValidateAmountInInvestmentStrategies() throws IOException {
     Map<String, Object> dollarData = new HashMap<>();
@@ -795,4 +861,823 @@ public class ModelComponentImplTest {
                     + "AMZN=[2022-10-10,Amazon.com Inc,AMZN,1.00,113.67,113.67,1.14,BUY, "
                     + "2012-10-10#2012-10-10,Amazon.com Inc,AMZN,3.63,244.99,891.00,9.00,BUY]}");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testCachedApiRequestsServesRepeatLookupFromDisk() throws IOException {
+    String cachePath = Files.createTempDirectory("priceCache").toString();
+    int[] calls = new int[1];
+    APIRequests api = new CachedAPIRequests((scale, symbol) -> {
+      calls[0]++;
+      return "{\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.49\"}}}";
+    }, cachePath, 60 * 1000);
+
+    String first = api.getTimeSeriesData(TimeUnit.Daily, "AMZN");
+    String second = api.getTimeSeriesData(TimeUnit.Daily, "AMZN");
+    api.getTimeSeriesData(TimeUnit.Monthly, "AMZN");
+
+    assertEquals(first, second);
+    assertEquals(2, calls[0]);
+  }
+
+  @Test
+  public void testCoalescingApiRequestsSharesInFlightFetch() throws InterruptedException {
+    CountDownLatch fetchStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CoalescingAPIRequests api = new CoalescingAPIRequests((scale, symbol) -> {
+      fetchStarted.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return symbol;
+    });
+
+    String[] results = new String[2];
+    Thread first = new Thread(() -> results[0] = api.getTimeSeriesData(TimeUnit.Daily, "AMZN"));
+    first.start();
+    fetchStarted.await();
+    CompletableFuture<String> second = api.fetch(TimeUnit.Daily, "AMZN",
+        FetchPriority.INTERACTIVE);
+    release.countDown();
+    first.join();
+    results[1] = second.join();
+
+    assertEquals("AMZN", results[0]);
+    assertEquals("AMZN", results[1]);
+    assertEquals(1, api.getFetchCount());
+    assertEquals(1, api.getCoalescedCount());
+  }
+
+  @Test
+  public void testScheduledApiRequestsRetriesRateLimitedResponse() {
+    int[] calls = new int[1];
+    ScheduledAPIRequests api = new ScheduledAPIRequests((scale, symbol) -> {
+      calls[0]++;
+      return calls[0] == 1
+          ? "{\"Note\": \"API call frequency is 5 calls per minute.\"}"
+          : "{\"Time Series (Daily)\": {}}";
+    }, 600);
+
+    String data = api.getTimeSeriesData(TimeUnit.Daily, "AMZN", FetchPriority.INTERACTIVE);
+
+    assertEquals("{\"Time Series (Daily)\": {}}", data);
+    assertEquals(1, api.getRetriedCount());
+    assertEquals(0, api.getQueueDepth());
+  }
+
+  @Test
+  public void testRecordedResponsesAreReplayedOffline() throws IOException {
+    String fixtures = Files.createTempDirectory("priceFixtures").toString();
+    String response = "{\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.49\"}}}";
+    new RecordingAPIRequests((scale, symbol) -> response, fixtures)
+        .getTimeSeriesData(TimeUnit.Daily, "AMZN");
+
+    assertEquals(response, new ReplayAPIRequests(fixtures).getTimeSeriesData(TimeUnit.Daily,
+        "AMZN"));
+    assertEquals("", new ReplayAPIRequests(fixtures).getTimeSeriesData(TimeUnit.Daily, "ORCL"));
+    assertEquals("", new ReplayAPIRequests(fixtures, 0, 0, 1, 7)
+        .getTimeSeriesData(TimeUnit.Daily, "AMZN"));
+  }
+
+  @Test
+  public void testCompactResponsesAreRecordedSeparately() throws IOException {
+    String fixtures = Files.createTempDirectory("priceFixtures").toString();
+    String full = "{\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.49\"},"
+        + "\"2022-11-11\": {\"4. close\": \"100.79\"}}}";
+    String recent = "{\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.49\"}}}";
+    APIRequests api = new APIRequests() {
+      @Override
+      public String getTimeSeriesData(TimeUnit scale, String symbol) {
+        return full;
+      }
+
+      @Override
+      public String getRecentTimeSeriesData(TimeUnit scale, String symbol,
+                                            FetchPriority priority) {
+        return recent;
+      }
+    };
+    RecordingAPIRequests recording = new RecordingAPIRequests(api, fixtures);
+    recording.getTimeSeriesData(TimeUnit.Daily, "AMZN");
+    recording.getRecentTimeSeriesData(TimeUnit.Daily, "AMZN", FetchPriority.INTERACTIVE);
+    recording.getTimeSeriesData(TimeUnit.Daily, "ORCL");
+
+    ReplayAPIRequests replay = ReplayAPIRequests.withRecordedLatency(fixtures, 0, 0);
+    assertEquals(full, replay.getTimeSeriesData(TimeUnit.Daily, "AMZN"));
+    assertEquals(recent, replay.getRecentTimeSeriesData(TimeUnit.Daily, "AMZN",
+        FetchPriority.INTERACTIVE));
+    assertEquals(full, replay.getRecentTimeSeriesData(TimeUnit.Daily, "ORCL",
+        FetchPriority.INTERACTIVE));
+  }
+
+  @Test
+  public void testRecentPricesAreMergedIntoHistory() {
+    PriceSeries history = PriceSeries.parse("{\"Time Series (Daily)\": {"
+        + "\"2022-11-14\": {\"4. close\": \"98.49\"},"
+        + "\"2022-11-11\": {\"4. close\": \"100.79\"},"
+        + "\"2022-11-10\": {\"4. close\": \"96.63\"}}}");
+    PriceSeries recent = PriceSeries.parse("{\"Time Series (Daily)\": {"
+        + "\"2022-11-15\": {\"4. close\": \"98.94\"},"
+        + "\"2022-11-14\": {\"4. close\": \"98.50\"}}}");
+
+    PriceSeries merged = history.merge(recent);
+
+    assertEquals(4, merged.size());
+    assertEquals(EpochDay.parse("2022-11-10"), merged.getDay(0));
+    assertEquals(100.79, merged.getClose(1), 0);
+    assertEquals(98.50, merged.getClose(2), 0);
+    assertEquals(98.94, merged.getCloseOnOrBefore(EpochDay.parse("2022-11-16")), 0);
+  }
+
+  @Test
+  public void testCoarserPricesAreRolledUpFromDailyPrices() throws IOException {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    List<TimeUnit> fetched = new ArrayList<>();
+    PriceStore store = new PriceStore((scale, symbol) -> {
+      fetched.add(scale);
+      return "{\"Time Series (Daily)\": {"
+          + "\"2022-11-14\": {\"4. close\": \"98.49\"},"
+          + "\"2022-10-31\": {\"4. close\": \"102.44\"},"
+          + "\"2022-10-28\": {\"4. close\": \"103.41\"}}}";
+    });
+
+    PriceSeries monthly = store.getSeries(TimeUnit.Monthly, "ROLLUP", FetchPriority.INTERACTIVE);
+    PriceSeries weekly = store.getSeries(TimeUnit.Weekly, "ROLLUP", FetchPriority.INTERACTIVE);
+    PriceSeries yearly = store.getSeries(TimeUnit.Yearly, "ROLLUP", FetchPriority.INTERACTIVE);
+
+    assertEquals(List.of(TimeUnit.Daily), fetched);
+    assertEquals(2, monthly.size());
+    assertEquals(EpochDay.parse("2022-10-31"), monthly.getDay(0));
+    assertEquals(102.44, monthly.getClose(0), 0);
+    assertEquals(3, weekly.size());
+    assertEquals(1, yearly.size());
+    assertEquals(98.49, yearly.getClose(0), 0);
+  }
+
+  @Test
+  public void testPriceArchiveIsAppendedInPlace() throws IOException {
+    Path file = Files.createTempDirectory("priceArchive").resolve("AMZN_Daily.prc");
+    PriceArchive.write(file, PriceSeries.parse("{\"Time Series (Daily)\": {"
+        + "\"2022-11-14\": {\"1. open\": \"97.84\", \"2. high\": \"100.4\","
+        + " \"3. low\": \"97.26\", \"4. close\": \"98.49\", \"5. volume\": \"99533108\"},"
+        + "\"2022-11-11\": {\"1. open\": \"97.88\", \"2. high\": \"101.19\","
+        + " \"3. low\": \"96.66\", \"4. close\": \"100.79\", \"5. volume\": \"111390709\"}}}",
+        true));
+    assertTrue(PriceArchive.append(file, PriceSeries.parse("{\"Time Series (Daily)\": {"
+        + "\"2022-11-15\": {\"1. open\": \"98.5\", \"2. high\": \"99.3\","
+        + " \"3. low\": \"96.0\", \"4. close\": \"98.94\", \"5. volume\": \"89200000\"},"
+        + "\"2022-11-14\": {\"1. open\": \"97.84\", \"2. high\": \"100.4\","
+        + " \"3. low\": \"97.26\", \"4. close\": \"98.5\", \"5. volume\": \"99533108\"}}}",
+        true)));
+
+    PriceArchive archive = PriceArchive.open(file);
+    assertEquals(3, archive.size());
+    assertEquals(100.79, archive.getCloseOnOrBefore(EpochDay.parse("2022-11-13")), 0);
+    assertEquals(98.5, archive.getCloseOnOrBefore(EpochDay.parse("2022-11-14")), 0);
+    assertEquals(0, archive.getCloseOnOrBefore(EpochDay.parse("2022-11-10")), 0);
+    assertEquals(89200000, archive.toSeries().getVolume(2));
+  }
+
+  @Test
+  public void testFailedRefreshKeepsNewerPrices() throws IOException {
+    Path archiveDir = Files.createTempDirectory("priceArchive");
+    Cache.properties.setProperty("priceArchivePath", archiveDir.toString());
+    String newer = "{\"Time Series (Daily)\": {\"2022-11-16\": {\"4. close\": \"97.1\"},"
+        + "\"2022-11-14\": {\"4. close\": \"98.49\"}}}";
+    String older = "{\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.49\"}}}";
+    new PriceStore((scale, symbol) -> newer).getSeries(TimeUnit.Daily, "STALE",
+        FetchPriority.INTERACTIVE);
+
+    List<String> requests = new ArrayList<>();
+    String ttl = Cache.getProperty("priceCacheTtlMinutes", "720");
+    Cache.properties.setProperty("priceCacheTtlMinutes", "0");
+    PriceStore offline;
+    try {
+      offline = new PriceStore(new APIRequests() {
+        @Override
+        public String getTimeSeriesData(TimeUnit scale, String symbol) {
+          requests.add("full");
+          return older;
+        }
+
+        @Override
+        public String getRecentTimeSeriesData(TimeUnit scale, String symbol,
+                                              FetchPriority priority) {
+          requests.add("recent");
+          return "";
+        }
+      });
+    } finally {
+      Cache.properties.setProperty("priceCacheTtlMinutes", ttl);
+    }
+    PriceSeries series = offline.getSeries(TimeUnit.Daily, "STALE", FetchPriority.INTERACTIVE);
+    offline.getSeries(TimeUnit.Daily, "STALE", FetchPriority.INTERACTIVE);
+
+    assertEquals(EpochDay.parse("2022-11-16"), series.getDay(series.size() - 1));
+    assertEquals(List.of("recent", "full"), requests);
+    PriceArchive archive = PriceArchive.open(archiveDir.resolve("STALE_Daily.prc"));
+    assertEquals(EpochDay.parse("2022-11-16"), archive.getDay(archive.size() - 1));
+  }
+
+  @Test
+  public void testPriceArenaServesArchivedPricesOffHeap() throws IOException {
+    Path dir = Files.createTempDirectory("priceArchive");
+    PriceArchive.write(dir.resolve("AMZN.prc"), new PriceSeries(
+        new int[]{EpochDay.parse("2022-11-11"), EpochDay.parse("2022-11-14")},
+        new double[]{100.79, 98.49}));
+    PriceArchive.write(dir.resolve("MSFT.prc"), new PriceSeries(
+        new int[]{EpochDay.parse("2022-11-14")}, new double[]{241.55}));
+    Map<String, PriceArchive> archives = new HashMap<>();
+    archives.put("AMZN", PriceArchive.open(dir.resolve("AMZN.prc")));
+    archives.put("MSFT", PriceArchive.open(dir.resolve("MSFT.prc")));
+
+    PriceArena arena = PriceArena.build(new SymbolDictionary(), List.of("MSFT", "AMZN", "ORCL"),
+        archives);
+
+    assertEquals(2, arena.getSymbolCount());
+    assertEquals(3, arena.getBarCount());
+    assertEquals(100.79, arena.getCloseOnOrBefore("AMZN",
+        EpochDay.parse("2022-11-13")), 0);
+    assertEquals(241.55, arena.getCloseOnOrBefore("MSFT",
+        EpochDay.parse("2022-11-14")), 0);
+    assertEquals(0, arena.getCloseOnOrBefore("ORCL", EpochDay.parse("2022-11-14")), 0);
+    assertTrue(arena.covers("AMZN", EpochDay.parse("2022-11-14")));
+    assertFalse(arena.covers("AMZN", EpochDay.parse("2022-11-15")));
+  }
+
+  @Test
+  public void testCompressedPriceSeriesDecodesSingleBlocks() {
+    int size = CompressedPriceSeries.BLOCK_SIZE * 3 + 5;
+    int[] days = new int[size];
+    double[] closes = new double[size];
+    int day = EpochDay.parse("2010-01-04");
+    for (int i = 0; i < size; i++) {
+      days[i] = day;
+      closes[i] = Math.round((100 + Math.sin(i) * 10) * 100) / 100.0;
+      day += i % 5 == 4 ? 3 : 1;
+    }
+    PriceSeries series = new PriceSeries(days, closes);
+
+    CompressedPriceSeries compressed = CompressedPriceSeries.encode(series);
+    PriceSeries decoded = compressed.decode();
+
+    assertTrue(compressed.getByteSize() < size * 12L);
+    assertEquals(size, decoded.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals(days[i], decoded.getDay(i));
+      assertEquals(closes[i], decoded.getClose(i), 0);
+      assertEquals(closes[i], compressed.getCloseOnOrBefore(days[i]), 0);
+    }
+    assertEquals(closes[4], compressed.getCloseOnOrBefore(days[4] + 2), 0);
+    assertEquals(0, compressed.getCloseOnOrBefore(days[0] - 1), 0);
+  }
+
+  @Test
+  public void testTransactionDatesAreParsedOnce() {
+    CompanyStock stock = new CompanyStockImpl("2022-11-14", "Oracle Corp", "ORCL", 10.0, 82.0,
+        TransactionType.BUY, 2.0);
+    assertEquals(LocalDate.parse("2022-11-14").toEpochDay(), stock.getEpochDay());
+    assertEquals("2022-11-14", EpochDay.format(stock.getEpochDay()));
+    assertEquals(EpochDay.NONE, new CompanyStockImpl("", "Oracle Corp", "ORCL", 10.0, 82.0,
+        TransactionType.BUY, 2.0).getEpochDay());
+    assertEquals(EpochDay.parse("2022-11-14"), EpochDay.parseStrict("2022-11-14"));
+    try {
+      EpochDay.parseStrict("2022-02-30");
+      fail("invalid date was parsed");
+    } catch (DateTimeParseException e) {
+      // pass;
+    }
+  }
+
+  @Test
+  public void testTransactionsShareSymbolDictionary() {
+    SymbolDictionary dictionary = new SymbolDictionary();
+    assertEquals(0, dictionary.add("ORCL", "Oracle Corp"));
+    assertEquals(1, dictionary.add("AMZN", "Amazon.com Inc"));
+    assertEquals(0, dictionary.add("ORCL", "Oracle"));
+    assertEquals("Oracle Corp", dictionary.getName(0));
+    assertEquals("AMZN", dictionary.getSymbol(1));
+    assertEquals(SymbolDictionary.UNKNOWN, dictionary.getId("MSFT"));
+
+    CompanyStock first = new CompanyStockImpl("2022-11-14", "Oracle Corp", "ORCL", 10.0, 82.0,
+        TransactionType.BUY, 2.0);
+    CompanyStock second = new CompanyStockImpl("2022-11-15", "Oracle Corp", "ORCL", 5.0, 81.0,
+        TransactionType.SELL, 2.0);
+    assertEquals(first.getSymbolId(), second.getSymbolId());
+    assertEquals("ORCL", second.getCompanySymbol());
+    Assert.assertSame(first.getCompanyName(), second.getCompanyName());
+  }
+
+  @Test
+  public void testTransactionTableKeepsRowsInColumns() {
+    TransactionTable table = new TransactionTable(1);
+    table.add("2022-11-14", "Oracle Corp", "ORCL", 10.0, 82.0, 820.0, TransactionType.BUY, 2.0);
+    table.add("2022-11-15", "Amazon.com Inc", "AMZN", 3.0, 98.0, 294.0, TransactionType.BUY, 1.0);
+    table.add("2010-14-14", "Oracle Corp", "ORCL", 4.0, 90.0, 360.0, TransactionType.SELL, 0.5);
+    assertEquals(3, table.size());
+
+    HashMap<String, List<CompanyStock>> portfolio = table.toPortfolio();
+    List<CompanyStock> oracle = portfolio.get("ORCL");
+    assertEquals(2, oracle.size());
+    assertEquals(1, portfolio.get("AMZN").size());
+    assertEquals("2010-14-14", oracle.get(1).getDate());
+    assertEquals("2010-14-14,Oracle Corp,ORCL,4.00,90.00,360.00,0.50,SELL",
+        oracle.get(1).toString());
+    assertEquals(TransactionType.SELL, oracle.get(1).getType());
+    assertEquals(1, TransactionTable.rowsOf(oracle).until(EpochDay.parse("2022-11-13")).size());
+    assertEquals(820.0, TransactionTable.rowsOf(new ArrayList<>(oracle)).getTable().getValue(0),
+        0);
+    TransactionTable later = new TransactionTable();
+    later.add("2022-11-16", "Oracle Corp", "ORCL", 1.0, 85.0, 85.0, TransactionType.BUY, 0);
+    TransactionTable other = new TransactionTable();
+    other.add("2022-11-17", "Oracle Corp", "ORCL", 2.0, 86.0, 172.0, TransactionType.BUY, 0);
+    HashMap<String, List<CompanyStock>> once = TransactionTable.append(portfolio, later);
+    HashMap<String, List<CompanyStock>> twice = TransactionTable.append(once, later);
+    HashMap<String, List<CompanyStock>> branched = TransactionTable.append(once, other);
+    assertEquals(2, oracle.size());
+    assertEquals(3, once.get("ORCL").size());
+    assertEquals("2022-11-16", twice.get("ORCL").get(3).getDate());
+    assertEquals("2022-11-17", branched.get("ORCL").get(3).getDate());
+    assertEquals(1, branched.get("AMZN").size());
+    try {
+      oracle.get(0).setBoughtPrice(1.0);
+      fail("a row of the table was changed in place");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(82.0, oracle.get(0).getBoughtPrice(), 0);
+    }
+  }
+
+  @Test
+  public void testPositionLedgerAnswersAsOfQueries() {
+    List<CompanyStock> oracle = new ArrayList<>();
+    oracle.add(new CompanyStockImpl("2022-11-14", "Oracle Corp", "ORCL", 10.0, 80.0,
+        TransactionType.BUY, 2.0));
+    oracle.add(new CompanyStockImpl("2022-11-01", "Oracle Corp", "ORCL", 5.0, 70.0,
+        TransactionType.BUY, 1.0));
+    oracle.add(new CompanyStockImpl("2022-11-20", "Oracle Corp", "ORCL", 15.0, 90.0,
+        TransactionType.SELL, 3.0));
+    HashMap<String, List<CompanyStock>> portfolio = new HashMap<>();
+    portfolio.put("ORCL", oracle);
+
+    PositionLedger ledger = new PositionLedger(portfolio);
+    assertTrue(ledger.isOf(portfolio));
+    assertEquals(0, ledger.getQuantity("ORCL", EpochDay.parse("2022-10-31")), 0);
+    assertEquals(5, ledger.getQuantity("ORCL", EpochDay.parse("2022-11-13")), 0);
+    assertEquals(15, ledger.getQuantity("ORCL", EpochDay.parse("2022-11-19")), 0);
+    assertEquals(0, ledger.getQuantity("ORCL", EpochDay.parse("2022-11-20")), 0);
+    assertEquals(0, ledger.getQuantity("AMZN", EpochDay.parse("2022-11-20")), 0);
+    assertEquals(1153, ledger.getCostBasis(EpochDay.parse("2022-11-14")), 0);
+    assertEquals(1156, ledger.getCostBasis(EpochDay.parse("2022-11-20")), 0);
+    int[] days = {EpochDay.parse("2022-10-31"), EpochDay.parse("2022-11-14"),
+        EpochDay.parse("2022-11-21"), EpochDay.parse("2022-11-01")};
+    double[] quantities = ledger.getQuantities("ORCL", days);
+    assertEquals(0, quantities[0], 0);
+    assertEquals(15, quantities[1], 0);
+    assertEquals(0, quantities[2], 0);
+    assertEquals(5, quantities[3], 0);
+
+    HashMap<String, List<CompanyStock>> newer = new HashMap<>();
+    newer.put("ORCL", new ArrayList<>(oracle));
+    newer.get("ORCL").add(new CompanyStockImpl("2022-11-02", "Oracle Corp", "ORCL", 1.0, 72.0,
+        TransactionType.BUY, 0.5));
+    ledger.update(newer);
+    assertTrue(ledger.isOf(newer));
+    assertEquals(6, ledger.getQuantity("ORCL", EpochDay.parse("2022-11-13")), 0);
+    assertEquals(1, ledger.getQuantity("ORCL", EpochDay.parse("2022-11-20")), 0);
+  }
+
+  @Test
+  public void testQuantityIndexFindsMinimumAfterDate() {
+    QuantityIndex index = new QuantityIndex();
+    assertEquals(Double.MAX_VALUE, index.getMinimumAfter(0), 0);
+    index.add(10, 20);
+    index.add(30, -15);
+    index.add(20, 5);
+    index.add(40, 10);
+    index.add(30, -5);
+
+    assertEquals(15, index.getTotal(), 0);
+    assertEquals(0, index.getQuantityOnOrBefore(9), 0);
+    assertEquals(25, index.getQuantityOnOrBefore(29), 0);
+    assertEquals(5, index.getMinimumAfter(10), 0);
+    assertEquals(15, index.getMinimumAfter(30), 0);
+    assertEquals(Double.MAX_VALUE, index.getMinimumAfter(40), 0);
+
+    // a sale back-dated before the lowest holding lowers every later day.
+    index.add(15, -4);
+    assertEquals(1, index.getMinimumAfter(10), 0);
+    assertEquals(16, index.getQuantityOnOrBefore(15), 0);
+  }
+
+  @Test
+  public void testAlignedSeriesCarriesLastPointForward() {
+    AlignedSeries aligned = AlignedSeries.join(new int[][]{{1, 2, 4, 5}, {2, 3, 4}, {}});
+    assertEquals("[1, 2, 3, 4, 5]", Arrays.toString(aligned.getKeys()));
+    assertEquals("[0, 1, 1, 2, 3]", Arrays.toString(aligned.getIndices(0)));
+    assertEquals("[-1, 0, 1, 2, 2]", Arrays.toString(aligned.getIndices(1)));
+    assertEquals("[-1, -1, -1, -1, -1]", Arrays.toString(aligned.getIndices(2)));
+  }
+
+  @Test
+  public void testAlignedSeriesMergesManySeriesOnce() {
+    AlignedSeries aligned = AlignedSeries.join(
+        new int[][]{{3, 7}, {1, 3, 3, 9}, {5}, {2, 7, 9}, {8}});
+    assertEquals("[1, 2, 3, 5, 7, 8, 9]", Arrays.toString(aligned.getKeys()));
+    assertEquals("[-1, -1, 0, 0, 1, 1, 1]", Arrays.toString(aligned.getIndices(0)));
+    assertEquals("[0, 0, 2, 2, 2, 2, 3]", Arrays.toString(aligned.getIndices(1)));
+    assertEquals("[-1, -1, -1, 0, 0, 0, 0]", Arrays.toString(aligned.getIndices(2)));
+    assertEquals("[-1, 0, 0, 0, 1, 1, 2]", Arrays.toString(aligned.getIndices(3)));
+    assertEquals("[-1, -1, -1, -1, -1, 0, 0]", Arrays.toString(aligned.getIndices(4)));
+    assertEquals(0, AlignedSeries.join(new int[0][]).getKeys().length);
+  }
+
+  @Test
+  public void testPriceQuoterLooksUpSymbolsInParallel() throws IOException {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    CountDownLatch started = new CountDownLatch(2);
+    PriceStore store = new PriceStore((scale, symbol) -> {
+      if (symbol.equals("QBAD")) {
+        throw new IllegalStateException("no connection");
+      }
+      started.countDown();
+      try {
+        // both lookups have to run at the same time to get past the latch.
+        assertTrue(started.await(5, java.util.concurrent.TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "{\"Time Series (Daily)\": {"
+          + "\"2022-11-14\": {\"4. close\": \"" + (symbol.equals("QONE") ? 98.49 : 10.5)
+          + "\"}}}";
+    });
+    StringBuilder out = new StringBuilder();
+
+    Map<String, Double> quotes = new PriceQuoter(store, out, Cache.getWorkers()).quote(
+        List.of("QONE", "QTWO", "QBAD"), EpochDay.parse("2022-11-15"));
+
+    assertEquals(98.49, quotes.get("QONE"), 0);
+    assertEquals(10.5, quotes.get("QTWO"), 0);
+    assertEquals(0, quotes.get("QBAD"), 0);
+    assertEquals("Price of QBAD could not be loaded: no connection\n", out.toString());
+  }
+
+  @Test
+  public void testHouseholdValuePricesSharedCompaniesOnce() throws IOException {
+    List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+    // the price store of the model keeps its archive path from construction.
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    ModelComponent model = new ModelComponentImpl(new StringBuilder(),
+        new PortfolioRepositoryImpl(), (scale, symbol) -> {
+          fetched.add(symbol);
+          return "{\"Time Series (Daily)\": {"
+              + "\"2022-11-14\": {\"4. close\": \"" + (symbol.equals("HHA") ? 10 : 4) + "\"}}}";
+        });
+    TransactionTable first = new TransactionTable();
+    first.add("2022-11-01", "Household A", "HHA", 2, 8, 16, TransactionType.BUY, 0);
+    first.add("2022-11-01", "Household B", "HHB", 5, 3, 15, TransactionType.BUY, 0);
+    TransactionTable second = new TransactionTable();
+    second.add("2022-11-02", "Household A", "HHA", 3, 9, 27, TransactionType.BUY, 0);
+    second.add("2022-11-20", "Household B", "HHB", 1, 5, 5, TransactionType.BUY, 0);
+    Cache.objectStore.put("Household_1", first.toPortfolio());
+    Cache.objectStore.put("Household_2", second.toPortfolio());
+
+    try {
+      HouseholdValueDTO dto = model.getHouseholdValue("2022-11-15",
+          List.of("Household_1", "Household_2", "Household_3"));
+
+      assertEquals(List.of("Household_1", "Household_2"),
+          new ArrayList<>(dto.getPortfolioValues().keySet()));
+      assertEquals(40, dto.getPortfolioValues().get("Household_1"), 1e-9);
+      assertEquals(30, dto.getPortfolioValues().get("Household_2"), 1e-9);
+      assertEquals(70, dto.getTotalValue(), 1e-9);
+      Collections.sort(fetched);
+      assertEquals(List.of("HHA", "HHB"), fetched);
+    } finally {
+      Cache.objectStore.remove("Household_1");
+      Cache.objectStore.remove("Household_2");
+    }
+  }
+
+  @Test
+  public void testPortfolioValueSeriesMatchesSingleValuations() throws IOException {
+    // the price store of the model keeps its archive path from construction.
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    ModelComponent model = new ModelComponentImpl(new StringBuilder(),
+        new PortfolioRepositoryImpl(), (scale, symbol) -> "{\"Time Series (Daily)\": {"
+            + "\"2022-11-14\": {\"4. close\": \"12\"},"
+            + "\"2022-10-31\": {\"4. close\": \"10\"}}}");
+    TransactionTable table = new TransactionTable();
+    table.add("2022-10-03", "Series A", "VSA", 4, 8, 32, TransactionType.BUY, 0);
+    table.add("2022-11-02", "Series B", "VSB", 2, 9, 18, TransactionType.BUY, 0);
+    table.add("2022-11-15", "Series A", "VSA", 1, 12, 12, TransactionType.SELL, 0);
+    Cache.objectStore.put("Value_Series", table.toPortfolio());
+
+    try {
+      String[] dates = {"2022-11-16", "2022-10-01", "2022-11-14", "2022-11-01"};
+      double[] values = model.getPortfolioValueSeries(dates, "Value_Series");
+
+      assertEquals("[60.0, 0.0, 72.0, 40.0]", Arrays.toString(values));
+      for (int i = 0; i < dates.length; i++) {
+        double value = 0;
+        for (CompanyStock stock : model.getPortfolioValue(dates[i], "Value_Series").values()) {
+          value += stock.getQuantity() * stock.getBoughtPrice();
+        }
+        assertEquals(value, values[i], 1e-9);
+      }
+      assertEquals("[0.0, 0.0]", Arrays.toString(
+          model.getPortfolioValueSeries(new String[]{"2022-11-16", "2022-10-01"}, "No_Series")));
+    } finally {
+      Cache.objectStore.remove("Value_Series");
+    }
+  }
+
+  @Test
+  public void testTaxLotsMatchSalesUnderPolicy() {
+    TransactionTable table = new TransactionTable();
+    table.add("2022-01-03", "Lots Inc", "LOT", 10, 10, 100, TransactionType.BUY, 0);
+    table.add("2022-02-01", "Lots Inc", "LOT", 10, 20, 200, TransactionType.BUY, 0);
+    table.add("2022-03-01", "Lots Inc", "LOT", 15, 30, 450, TransactionType.SELL, 0);
+    HashMap<String, List<CompanyStock>> portfolio = table.toPortfolio();
+    int march = EpochDay.parse("2022-03-02");
+
+    TaxLotLedger fifo = new TaxLotLedger(portfolio, LotMatching.FIFO);
+    assertEquals(0, fifo.getRealizedGain(EpochDay.parse("2022-02-15")), 0);
+    assertEquals(250, fifo.getRealizedGain(march), 1e-9);
+    assertEquals(50, fifo.getUnrealizedGain("LOT", march, 30), 1e-9);
+    assertEquals(1, fifo.getOpenLots("LOT").get(0).getId());
+
+    TaxLotLedger lifo = new TaxLotLedger(portfolio, LotMatching.LIFO);
+    assertEquals(200, lifo.getRealizedGain(march), 1e-9);
+    assertEquals(100, lifo.getUnrealizedGain("LOT", march, 30), 1e-9);
+    assertEquals(1, lifo.getOpenLots("LOT").size());
+    assertEquals(0, lifo.getOpenLots("LOT").get(0).getId());
+    assertEquals(5, lifo.getOpenLots("LOT").get(0).getQuantity(), 0);
+
+    TaxLotLedger specific = new TaxLotLedger(portfolio, LotMatching.SPECIFIC_ID);
+    specific.identify("LOT", 2, 1);
+    assertEquals(200, specific.getRealizedGain(march), 1e-9);
+    assertEquals(0, specific.getOpenLots("LOT").get(0).getId());
+
+    // appended sales are matched in place, earlier dated ones match the company again.
+    table.add("2022-04-01", "Lots Inc", "LOT", 5, 40, 200, TransactionType.SELL, 0);
+    fifo.update(table.toPortfolio());
+    assertEquals(250, fifo.getRealizedGain(march), 1e-9);
+    assertEquals(350, fifo.getRealizedGain("LOT", EpochDay.parse("2022-04-01")), 1e-9);
+    assertEquals(0, fifo.getOpenQuantity("LOT", EpochDay.parse("2022-04-01")), 0);
+    table.add("2022-01-02", "Lots Inc", "LOT", 5, 2, 10, TransactionType.BUY, 0);
+    fifo.update(table.toPortfolio());
+    assertEquals(340, fifo.getRealizedGain(march), 1e-9);
+    assertEquals(5, fifo.getOpenQuantity("LOT", EpochDay.parse("2022-04-01")), 0);
+  }
+
+  @Test
+  public void testTaxLotsIgnoreEmptySale() {
+    TransactionTable table = new TransactionTable();
+    table.add("2022-01-03", "Lots Inc", "LOT", 10, 10, 100, TransactionType.BUY, 0);
+    table.add("2022-02-01", "Lots Inc", "LOT", 0, 20, 0, TransactionType.SELL, 5);
+    TaxLotLedger ledger = new TaxLotLedger(table.toPortfolio(), LotMatching.FIFO);
+    int february = EpochDay.parse("2022-02-01");
+    assertEquals(0, ledger.getRealizedGain(february), 0);
+    assertEquals(10, ledger.getOpenQuantity("LOT", february), 0);
+    assertEquals(100, ledger.getUnrealizedGain("LOT", february, 20), 1e-9);
+  }
+
+  @Test
+  public void testIdentifiedLotsSurviveRematching() throws IOException {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    ModelComponent model = new ModelComponentImpl(new StringBuilder(),
+        new PortfolioRepositoryImpl(), (scale, symbol) -> "");
+    // the model loads its config on construction.
+    String matching = Cache.getProperty("lotMatching", "FIFO");
+    Cache.properties.setProperty("lotMatching", "SPECIFIC_ID");
+    TransactionTable table = new TransactionTable();
+    table.add("2022-01-03", "Lots Inc", "LOT", 10, 10, 100, TransactionType.BUY, 0);
+    table.add("2022-02-01", "Lots Inc", "LOT", 10, 20, 200, TransactionType.BUY, 0);
+    table.add("2022-03-01", "Lots Inc", "LOT", 15, 30, 450, TransactionType.SELL, 0);
+    Cache.objectStore.put("Lot_Ids", table.toPortfolio());
+
+    try {
+      assertEquals(250, model.getRealizedGain("2022-03-02", "Lot_Ids"), 1e-9);
+      model.identifyLots("Lot_Ids", "LOT", 2, 1);
+      assertEquals(200, model.getRealizedGain("2022-03-02", "Lot_Ids"), 1e-9);
+
+      // replaced transactions and an evicted ledger are matched again with the same lots.
+      Cache.objectStore.put("Lot_Ids", table.toPortfolio());
+      assertEquals(200, model.getRealizedGain("2022-03-02", "Lot_Ids"), 1e-9);
+      Cache.taxLots.remove("Lot_Ids");
+      assertEquals(200, model.getRealizedGain("2022-03-02", "Lot_Ids"), 1e-9);
+    } finally {
+      Cache.properties.setProperty("lotMatching", matching);
+      Cache.objectStore.remove("Lot_Ids");
+      Cache.taxLots.remove("Lot_Ids");
+      Cache.lotIdentifications.remove("Lot_Ids");
+    }
+  }
+
+  @Test
+  public void testUnrealizedGainLeavesOutUnpricedCompanies() throws IOException {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    StringBuilder out = new StringBuilder();
+    ModelComponent model = new ModelComponentImpl(out, new PortfolioRepositoryImpl(),
+        (scale, symbol) -> symbol.equals("UGA") ? "{\"Time Series (Daily)\": {"
+            + "\"2022-11-14\": {\"4. close\": \"12\"}}}" : "");
+    TransactionTable table = new TransactionTable();
+    table.add("2022-10-03", "Gain A", "UGA", 4, 10, 40, TransactionType.BUY, 0);
+    table.add("2022-10-03", "Gain B", "UGB", 2, 50, 100, TransactionType.BUY, 0);
+    Cache.objectStore.put("Unpriced", table.toPortfolio());
+
+    try {
+      assertEquals(8, model.getUnrealizedGain("2022-11-14", "Unpriced"), 1e-9);
+      assertTrue(out.toString().contains("UGB"));
+    } finally {
+      Cache.objectStore.remove("Unpriced");
+      Cache.taxLots.remove("Unpriced");
+      Cache.lotIdentifications.remove("Unpriced");
+    }
+  }
+
+  @Test
+  public void testSavedTransactionsAreAppendedToCachedPortfolio() throws IOException {
+    List<String> read = new ArrayList<>();
+    PortfolioRepository repo = new PortfolioRepositoryImpl() {
+      @Override
+      public HashMap<String, List<CompanyStock>> readFile(String filePath) {
+        read.add(filePath);
+        return super.readFile(filePath);
+      }
+    };
+    List<CompanyStock> saved = new ArrayList<>();
+    saved.add(new CompanyStockImpl("2022-11-01", "Oracle Corp", "ORCL", 2.345, 80.125,
+        TransactionType.BUY, 1.0));
+    saved.add(new CompanyStockImpl("2022-11-02", "Amazon.com Inc", "AMZN", 1.0, 90.0,
+        TransactionType.BUY, 0.5));
+    String name = repo.saveCompanyStock("Flexible", saved);
+    Path file = Path.of("/Applications/portfolios", name);
+
+    try {
+      repo.updateFile(name, List.of(
+          new CompanyStockImpl("2022-11-03", "Oracle Corp", "ORCL", 1.0, 81.0,
+              TransactionType.SELL, 0.25),
+          new CompanyStockImpl("2022-11-04", "Microsoft Corporation", "MSFT", 3.0, 220.0,
+              TransactionType.BUY, 0.75)));
+      assertTrue(read.isEmpty());
+
+      HashMap<String, List<CompanyStock>> cached = Cache.objectStore.get(name);
+      HashMap<String, List<CompanyStock>> fromFile = repo.readFile(file.toString());
+      assertEquals(fromFile.keySet(), cached.keySet());
+      for (String symbol : fromFile.keySet()) {
+        assertEquals(fromFile.get(symbol).toString(), cached.get(symbol).toString());
+      }
+      // the cache holds the values written to the file, not the unrounded ones.
+      assertEquals(2.35, cached.get("ORCL").get(0).getQuantity(), 0);
+    } finally {
+      Cache.objectStore.remove(name);
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testPortfolioCacheLoadsLazilyAndEvictsLeastRecentlyUsed() {
+    List<String> read = new ArrayList<>();
+    List<String> listed = new ArrayList<>(List.of("Lazy_1", "Lazy_2", "Lazy_3"));
+    int[] listings = new int[1];
+    PortfolioRepository repo = new PortfolioRepositoryImpl() {
+      @Override
+      public List<String> getListOfPortfolio() {
+        listings[0]++;
+        return listed;
+      }
+
+      @Override
+      public HashMap<String, List<CompanyStock>> getPortfolio(String filename) {
+        read.add(filename);
+        return new HashMap<>();
+      }
+    };
+    PortfolioCache cache = new PortfolioCache(2);
+    cache.attach(repo, 2);
+
+    assertEquals(Set.of("Lazy_1", "Lazy_2", "Lazy_3"), cache.keySet());
+    assertTrue(cache.containsKey("Lazy_3"));
+    assertTrue(read.isEmpty());
+
+    cache.get("Lazy_1");
+    cache.get("Lazy_2");
+    cache.get("Lazy_1");
+    cache.get("Lazy_3");
+    cache.get("Lazy_1");
+    cache.get("Lazy_2");
+    assertNull(cache.get("Lazy_4"));
+
+    assertEquals(List.of("Lazy_1", "Lazy_2", "Lazy_3", "Lazy_2"), read);
+    assertEquals(2, cache.getHits());
+    assertEquals(5, cache.getMisses());
+
+    // the repository is listed again only once a portfolio was created.
+    assertEquals(1, listings[0]);
+    listed.add("Lazy_4");
+    assertFalse(cache.containsKey("Lazy_4"));
+    cache.refreshListing();
+    assertTrue(cache.containsKey("Lazy_4"));
+    assertEquals(4, cache.size());
+    assertEquals(2, listings[0]);
+  }
+
+  @Test
+  public void testInvalidNumbersGiveEmptySeries() {
+    for (String close : new String[]{"", "None", "-", "."}) {
+      PriceSeries series = PriceSeries.parse("{\"Time Series (Daily)\": {"
+          + "\"2022-11-15\": {\"4. close\": \"98.5\"},"
+          + "\"2022-11-14\": {\"4. close\": \"" + close + "\"}}}");
+      assertEquals(0, series.size());
+    }
+    assertEquals(-1.5, PriceSeries.parse("{\"Time Series (Daily)\": {"
+        + "\"2022-11-14\": {\"4. close\": \"-1.5\"}}}").getClose(0), 0);
+  }
+
+  @Test
+  public void testInvalidUnicodeEscapesGiveEmptySeries() {
+    for (String escape : new String[]{"\\u00zz", "\\u-001", "\\u12"}) {
+      PriceSeries series = PriceSeries.parse("{\"Meta Data\": {\"1. Information\": \""
+          + escape + "\"}, \"Time Series (Daily)\": {"
+          + "\"2022-11-14\": {\"4. close\": \"98.5\"}}}");
+      assertEquals(0, series.size());
+    }
+    assertEquals(1, PriceSeries.parse("{\"Meta Data\": {\"1. Information\": \"\\u00e9\"}, "
+        + "\"Time Series (Daily)\": {\"2022-11-14\": {\"4. close\": \"98.5\"}}}").size());
+  }
+
+  @Test
+  public void testPortfolioPrefetchReadsPortfoliosInTheBackground() throws Exception {
+    java.util.concurrent.CountDownLatch repository = new java.util.concurrent.CountDownLatch(1);
+    List<String> read = new java.util.concurrent.CopyOnWriteArrayList<>();
+    PortfolioRepository repo = new PortfolioRepositoryImpl() {
+      @Override
+      public List<String> getListOfPortfolio() {
+        try {
+          repository.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return List.of("Prefetch_1");
+      }
+
+      @Override
+      public HashMap<String, List<CompanyStock>> getPortfolio(String filename) {
+        read.add(filename);
+        HashMap<String, List<CompanyStock>> portfolio = new HashMap<>();
+        portfolio.put("PFR", new ArrayList<>());
+        return portfolio;
+      }
+    };
+    ModelComponentImpl model = new ModelComponentImpl(new StringBuilder(), repo,
+        (scale, symbol) -> "{\"Time Series (Daily)\": {"
+            + "\"2022-11-14\": {\"4. close\": \"10\"}}}");
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+
+    java.util.concurrent.CompletableFuture<Integer> prefetch = model.prefetchPortfolioPrices();
+
+    assertFalse(prefetch.isDone());
+    assertTrue(read.isEmpty());
+    repository.countDown();
+    assertEquals(1, (int) prefetch.get());
+    assertEquals(List.of("Prefetch_1"), read);
+  }
+
+  @Test
+  public void testPrefetcherKeepsToItsThreadsOnSharedWorkers() throws Exception {
+    Cache.properties.setProperty("priceArchivePath",
+        Files.createTempDirectory("priceArchive").toString());
+    java.util.concurrent.atomic.AtomicInteger running =
+        new java.util.concurrent.atomic.AtomicInteger();
+    java.util.concurrent.atomic.AtomicInteger busiest =
+        new java.util.concurrent.atomic.AtomicInteger();
+    PriceStore store = new PriceStore((scale, symbol) -> {
+      busiest.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      return symbol.equals("PF5") ? "{}" : "{\"Time Series (Daily)\": {"
+          + "\"2022-11-14\": {\"4. close\": \"10\"}}}";
+    });
+    StringBuilder out = new StringBuilder();
+
+    int loaded = new PricePrefetcher(store, out, Cache.getWorkers(), 2)
+        .prefetch(List.of("PF1", "PF2", "PF3", "PF4", "PF5")).get();
+
+    assertEquals(4, loaded);
+    assertTrue(busiest.get() <= 2);
+    assertTrue(out.toString().contains("No price data found for PF5."));
+  }
+}
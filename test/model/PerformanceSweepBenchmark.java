@@ -0,0 +1,147 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import model.enums.TransactionType;
+
+/**
+ * This class represents the benchmark of the quantities held on every price point of a performance
+ * chart. It compares three ways to get them over a 10-year daily range:
+ * <ul>
+ *   <li>replaying the transactions of a company with getCumulativeData for every point, as
+ *   getPerformanceOfPortfolio did before the position ledger;</li>
+ *   <li>a binary search of the position ledger for every point;</li>
+ *   <li>one sweep of the position ledger over the ascending points, as getPerformanceOfPortfolio
+ *   does now.</li>
+ * </ul>
+ * The ledger timings include building the ledger. It fails if the three disagree on a quantity.
+ *
+ * <p>Run it with the test classpath:
+ * {@code java model.PerformanceSweepBenchmark [transactionsPerCompany...]}
+ */
+public final class PerformanceSweepBenchmark {
+  private static final String[] SYMBOLS = {"SWA", "SWB", "SWC", "SWD", "SWE"};
+  private static final int ITERATIONS = 5;
+
+  private PerformanceSweepBenchmark() {
+  }
+
+  /**
+   * Method to run the benchmark.
+   *
+   * @param args numbers of transactions per company to benchmark, 120 and 1200 by default.
+   */
+  public static void main(String[] args) {
+    AbstractModel model = new ModelComponentImpl(new StringBuilder(),
+        new PortfolioRepositoryImpl(), (scale, symbol) -> "");
+    List<String> dates = new ArrayList<>();
+    for (LocalDate day = LocalDate.of(2014, 1, 1); day.getYear() < 2024;
+         day = day.plusDays(1)) {
+      if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+        dates.add(day.toString());
+      }
+    }
+    int[] days = new int[dates.size()];
+    for (int i = 0; i < days.length; i++) {
+      days[i] = EpochDay.parse(dates.get(i));
+    }
+
+    for (String arg : args.length == 0 ? new String[]{"120", "1200"} : args) {
+      int transactions = Integer.parseInt(arg);
+      HashMap<String, List<CompanyStock>> portfolio = generatePortfolio(dates, transactions);
+
+      double[][] replayed = new double[SYMBOLS.length][];
+      double replay = BenchmarkFixtures.time(ITERATIONS, () -> {
+        for (int s = 0; s < SYMBOLS.length; s++) {
+          replayed[s] = replay(model, portfolio, SYMBOLS[s], dates);
+        }
+      });
+      double[][] searched = new double[SYMBOLS.length][days.length];
+      double search = BenchmarkFixtures.time(ITERATIONS, () -> {
+        PositionLedger ledger = new PositionLedger(portfolio);
+        for (int s = 0; s < SYMBOLS.length; s++) {
+          for (int i = 0; i < days.length; i++) {
+            searched[s][i] = ledger.getQuantity(SYMBOLS[s], days[i]);
+          }
+        }
+      });
+      double[][] swept = new double[SYMBOLS.length][];
+      double sweep = BenchmarkFixtures.time(ITERATIONS, () -> {
+        PositionLedger ledger = new PositionLedger(portfolio);
+        for (int s = 0; s < SYMBOLS.length; s++) {
+          swept[s] = ledger.getQuantities(SYMBOLS[s], days);
+        }
+      });
+      for (int s = 0; s < SYMBOLS.length; s++) {
+        for (int i = 0; i < days.length; i++) {
+          if (replayed[s][i] != searched[s][i] || replayed[s][i] != swept[s][i]) {
+            throw new IllegalStateException("Quantities differ for " + SYMBOLS[s] + " on "
+                + dates.get(i) + ".");
+          }
+        }
+      }
+      System.out.printf("%d points, %d companies, %d transactions each: replay %.1f ms, "
+              + "ledger search %.2f ms, ledger sweep %.2f ms (%.0fx faster than replay)%n",
+          days.length, SYMBOLS.length, transactions, replay / 1e6, search / 1e6, sweep / 1e6,
+          replay / sweep);
+    }
+  }
+
+  /**
+   * Helper method to get the quantity of a company held on every date by replaying its
+   * transactions up to each date.
+   *
+   * @param model     model whose getCumulativeData replays the transactions.
+   * @param portfolio transactions by company symbol.
+   * @param symbol    company/Stock symbol.
+   * @param dates     dates in ascending order.
+   * @return quantity held on each date.
+   */
+  private static double[] replay(AbstractModel model,
+                                 HashMap<String, List<CompanyStock>> portfolio, String symbol,
+                                 List<String> dates) {
+    HashMap<String, List<CompanyStock>> companyStocks = new HashMap<>();
+    companyStocks.put(symbol, portfolio.get(symbol));
+    double[] quantities = new double[dates.size()];
+    for (int i = 0; i < quantities.length; i++) {
+      CompanyStock stock = model.getCumulativeData(companyStocks, dates.get(i), "").get(symbol);
+      quantities[i] = stock == null ? 0 : stock.getQuantity();
+    }
+    return quantities;
+  }
+
+  /**
+   * Helper method to generate a portfolio whose companies are bought and partly sold on random
+   * dates of the range. The same arguments always give the same portfolio.
+   *
+   * @param dates        dates of the range in ascending order.
+   * @param transactions number of transactions per company.
+   * @return transactions by company symbol.
+   */
+  private static HashMap<String, List<CompanyStock>> generatePortfolio(List<String> dates,
+                                                                       int transactions) {
+    Random random = new Random(transactions);
+    TransactionTable table = new TransactionTable();
+    for (String symbol : SYMBOLS) {
+      int[] picks = new int[transactions];
+      for (int i = 0; i < transactions; i++) {
+        picks[i] = random.nextInt(dates.size());
+      }
+      Arrays.sort(picks);
+      for (int i = 0; i < transactions; i++) {
+        // every third transaction sells half of the shares bought just before it.
+        boolean sell = i % 3 == 2;
+        double quantity = sell ? 5 : 10;
+        table.add(dates.get(picks[i]), symbol + " Inc", symbol, quantity, 10, quantity * 10,
+            sell ? TransactionType.SELL : TransactionType.BUY, 0);
+      }
+    }
+    return table.toPortfolio();
+  }
+}
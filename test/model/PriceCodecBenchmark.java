@@ -0,0 +1,108 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class represents the benchmark of the compressed price series codec. Daily responses are
+ * replayed from fixtures (see BenchmarkFixtures), parsed, and encoded twice: with closes only and
+ * with their OHLCV columns. It prints the size of each encoding against the uncompressed columns,
+ * the decode rate and the time of one block lookup. It fails if a decoded series differs from the
+ * replayed one.
+ *
+ * <p>Run it with the test classpath:
+ * {@code java model.PriceCodecBenchmark [fixturesDir [symbol...]]}
+ */
+public final class PriceCodecBenchmark {
+  private static final int DECODE_ITERATIONS = 200;
+  private static final int LOOKUPS = 2_000_000;
+
+  private PriceCodecBenchmark() {
+  }
+
+  /**
+   * Method to run the benchmark.
+   *
+   * @param args fixtures directory, followed by symbols to record from the live API if missing.
+   * @throws IOException if the fixtures could not be read or recorded.
+   */
+  public static void main(String[] args) throws IOException {
+    BenchmarkFixtures fixtures = BenchmarkFixtures.of(args);
+    System.out.println(fixtures.describe());
+    Map<String, String> responses = fixtures.replayDaily();
+    if (responses.isEmpty()) {
+      throw new IllegalStateException("No daily fixtures to benchmark.");
+    }
+
+    List<PriceSeries> closes = new ArrayList<>();
+    List<PriceSeries> ohlcv = new ArrayList<>();
+    for (String data : responses.values()) {
+      closes.add(PriceSeries.parse(data, false));
+      ohlcv.add(PriceSeries.parse(data, true));
+    }
+    // closes only are a day and a close, OHLCV adds open, high, low and volume.
+    report("closes", closes, Integer.BYTES + Double.BYTES);
+    report("OHLCV", ohlcv, Integer.BYTES + 4 * Double.BYTES + Long.BYTES);
+
+    PriceSeries longest = closes.get(0);
+    for (PriceSeries series : closes) {
+      longest = series.size() > longest.size() ? series : longest;
+    }
+    CompressedPriceSeries compressed = CompressedPriceSeries.encode(longest);
+    int first = longest.getDay(0);
+    int span = longest.getDay(longest.size() - 1) - first + 1;
+    Random random = new Random(1);
+    double[] sink = new double[1];
+    double nanos = BenchmarkFixtures.time(LOOKUPS,
+        () -> sink[0] += compressed.getCloseOnOrBefore(first + random.nextInt(span)));
+    System.out.printf("block lookup: %.2f us (%d points)%n", nanos / 1_000, longest.size());
+  }
+
+  /**
+   * Helper method to encode series, check their round trip and print the results.
+   *
+   * @param name          name of the encoding.
+   * @param series        series to encode.
+   * @param bytesPerPoint bytes of a point in uncompressed columns.
+   */
+  private static void report(String name, List<PriceSeries> series, int bytesPerPoint) {
+    List<CompressedPriceSeries> encoded = new ArrayList<>();
+    long points = 0;
+    long bytes = 0;
+    for (PriceSeries s : series) {
+      CompressedPriceSeries compressed = CompressedPriceSeries.encode(s);
+      check(s, compressed.decode());
+      encoded.add(compressed);
+      points += s.size();
+      bytes += compressed.getByteSize();
+    }
+    double nanos = BenchmarkFixtures.time(DECODE_ITERATIONS, () -> {
+      for (CompressedPriceSeries compressed : encoded) {
+        compressed.decode();
+      }
+    });
+    System.out.printf("%s: %d points, %.2fx smaller (%.1f bits/point), decode %.1fM points/s%n",
+        name, points, points * bytesPerPoint / (double) bytes, bytes * 8.0 / points,
+        points / nanos * 1_000);
+  }
+
+  /**
+   * Helper method to check that a decoded series has the days and closes of the original one.
+   *
+   * @param expected original series.
+   * @param actual   decoded series.
+   */
+  private static void check(PriceSeries expected, PriceSeries actual) {
+    boolean same = expected.size() == actual.size();
+    for (int i = 0; same && i < expected.size(); i++) {
+      same = expected.getDay(i) == actual.getDay(i)
+          && Double.compare(expected.getClose(i), actual.getClose(i)) == 0;
+    }
+    if (!same) {
+      throw new IllegalStateException("Decoded series differs from the replayed one.");
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+/**
+ * This class represents the benchmark of the streaming time series parser against the JSONObject
+ * tree it replaced. Daily responses are replayed from fixtures (see BenchmarkFixtures), and each
+ * one is parsed through a JSONObject tree, as PriceSeries.parse used to, and through
+ * TimeSeriesParser with closes only and with OHLCV columns. It prints the average time of each
+ * parse, and fails if the parsers disagree on a day or a close.
+ *
+ * <p>Run it with the test classpath:
+ * {@code java model.TimeSeriesParserBenchmark [fixturesDir [symbol...]]}
+ */
+public final class TimeSeriesParserBenchmark {
+  private static final int ITERATIONS = 50;
+
+  private TimeSeriesParserBenchmark() {
+  }
+
+  /**
+   * Method to run the benchmark.
+   *
+   * @param args fixtures directory, followed by symbols to record from the live API if missing.
+   * @throws IOException if the fixtures could not be read or recorded.
+   */
+  public static void main(String[] args) throws IOException {
+    BenchmarkFixtures fixtures = BenchmarkFixtures.of(args);
+    System.out.println(fixtures.describe());
+    Map<String, String> responses = fixtures.replayDaily();
+    if (responses.isEmpty()) {
+      throw new IllegalStateException("No daily fixtures to benchmark.");
+    }
+
+    for (Map.Entry<String, String> response : responses.entrySet()) {
+      String data = response.getValue();
+      check(parseWithJsonObject(data), PriceSeries.parse(data, false));
+      double tree = BenchmarkFixtures.time(ITERATIONS, () -> parseWithJsonObject(data));
+      double closes = BenchmarkFixtures.time(ITERATIONS, () -> PriceSeries.parse(data, false));
+      double ohlcv = BenchmarkFixtures.time(ITERATIONS, () -> PriceSeries.parse(data, true));
+      System.out.printf("%s (%d KB): JSONObject %.2f ms, streaming %.2f ms (%.1fx), "
+              + "streaming OHLCV %.2f ms%n", response.getKey(), data.length() / 1024,
+          tree / 1e6, closes / 1e6, tree / closes, ohlcv / 1e6);
+    }
+  }
+
+  /**
+   * Helper method to parse the closes of a daily response through a JSONObject tree, the way
+   * PriceSeries.parse did before TimeSeriesParser.
+   *
+   * @param data response string.
+   * @return parsed price series.
+   */
+  private static PriceSeries parseWithJsonObject(String data) {
+    JSONObject series = new JSONObject(data).getJSONObject("Time Series (Daily)");
+    String[] dates = series.keySet().toArray(new String[0]);
+    Arrays.sort(dates);
+    int[] days = new int[dates.length];
+    double[] closes = new double[dates.length];
+    for (int i = 0; i < dates.length; i++) {
+      days[i] = EpochDay.parse(dates[i]);
+      closes[i] = Double.parseDouble(series.getJSONObject(dates[i]).getString("4. close"));
+    }
+    return new PriceSeries(days, closes);
+  }
+
+  /**
+   * Helper method to check that two parsers gave the same days and closes.
+   *
+   * @param expected series parsed through the JSONObject tree.
+   * @param actual   series parsed by TimeSeriesParser.
+   */
+  private static void check(PriceSeries expected, PriceSeries actual) {
+    boolean same = expected.size() == actual.size();
+    for (int i = 0; same && i < expected.size(); i++) {
+      same = expected.getDay(i) == actual.getDay(i)
+          && Double.compare(expected.getClose(i), actual.getClose(i)) == 0;
+    }
+    if (!same) {
+      throw new IllegalStateException("Parsers disagree on the replayed response.");
+    }
+  }
+}